@@ -17,41 +17,60 @@
 
 package de.bmw.partchain.dis.asset.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bmw.partchain.dis.asset.filter.DecompressedSizeExceededException;
+import de.bmw.partchain.dis.asset.gateway.CircuitOpenException;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.gateway.DeliveryRejectedException;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.jackson.AssetRequestStreamReader;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
 import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
 import de.bmw.partchain.dis.asset.model.response.AssetFailType;
 import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
 import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.service.AssetIngestExecutor;
 import de.bmw.partchain.dis.asset.service.AssetIngestReportService;
 import de.bmw.partchain.dis.asset.service.AssetService;
+import de.bmw.partchain.dis.asset.service.OrderedChunkProcessor;
+import de.bmw.partchain.dis.asset.validator.AssetRequestValidator;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
 import de.bmw.partchain.dis.security.AuthenticationFacadeImpl;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.info.Info;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
-import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.ResponseEntity.ok;
@@ -75,21 +94,40 @@ import static org.springframework.http.ResponseEntity.status;
 public class AssetController
 {
     public static final String DEFAULT_ASSET_LOG_MESSAGE = "[DIS][%s] DESCRIPTION: %s at INDEX: %s";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     private final AssetService assetService;
     private final AssetIngestReportService failedAssetReportService;
     private final AuthenticationFacadeImpl authenticationFacade;
+    private final AssetJsonCodec codec;
+    private final AssetRequestValidator validator;
+    private final AssetIngestExecutor ingestExecutor;
+    private final AssetDeliveryProperties deliveryProperties;
 
     public AssetController(AssetService assetService, AssetIngestReportService failedAssetService,
-                           AuthenticationFacadeImpl authenticationFacade)
+                           AuthenticationFacadeImpl authenticationFacade, AssetJsonCodec codec,
+                           AssetRequestValidator validator, AssetIngestExecutor ingestExecutor,
+                           AssetDeliveryProperties deliveryProperties)
     {
         this.assetService = assetService;
         this.failedAssetReportService = failedAssetService;
         this.authenticationFacade = authenticationFacade;
+        this.codec = codec;
+        this.validator = validator;
+        this.ingestExecutor = ingestExecutor;
+        this.deliveryProperties = deliveryProperties;
     }
 
-    @RequestMapping(consumes = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST, path = "send-to-ledger")
+    @RequestMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, AssetJsonCodec.APPLICATION_SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE}, method = RequestMethod.POST, path = "send-to-ledger")
     @Operation(summary = "Receives a list of assets that will the send to the blockchain",
-            security = @SecurityRequirement(name = "Authorization")
+            security = @SecurityRequirement(name = "Authorization"),
+            requestBody = @RequestBody(required = true, content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = AssetRequestDto.class))),
+                    @Content(mediaType = AssetJsonCodec.APPLICATION_SMILE_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = AssetRequestDto.class))),
+                    @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = AssetRequestDto.class)))})
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200",
@@ -106,77 +144,284 @@ public class AssetController
                             schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "403", description = "Forbidden",
-                    content = {@Content(mediaType = "application/json")})})
-    public ResponseEntity<SentToLedgerResponseDto> sendToLedger(@RequestBody JsonNode request)
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503",
+                    description = "No asset could be handed to Kafka right now, retry after the Retry-After seconds",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))})})
+    public ResponseEntity<SentToLedgerResponseDto> sendToLedger(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream request) throws IOException
     {
         SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
         String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
         responseDto.setMspId(mspId);
-        ObjectMapper mapper = new ObjectMapper();
-
-        int index = 0;
 
-        for (Iterator<JsonNode> nodes = request.elements(); nodes.hasNext(); index++)
+        List<AssetResult> batch = new ArrayList<>();
+        int sendBatchSize = sendBatchSize(mspId);
+        try (JsonParser parser = codec.createParser(MediaType.parseMediaType(contentType), request);
+             OrderedChunkProcessor<JsonNode, AssetResult> processor = ingestExecutor.newProcessor(
+                     (index, next) -> processAsset(responseDto, mspId, index, next),
+                     result -> addToBatch(responseDto, batch, sendBatchSize, result)))
         {
-            JsonNode next = nodes.next();
-            String jsonRequestAsset = null;
+            AssetRequestStreamReader reader = openRequest(parser);
+            int index = 0;
             try
             {
-                jsonRequestAsset = mapper.writeValueAsString(next);
-                AssetRequestDto asset = mapper.treeToValue(next, AssetRequestDto.class);
-
-                List<String> failReasons = validateAsset(asset);
-                if (failReasons.isEmpty())
+                for (; reader.nextElement(); index++)
                 {
-                    processValidAsset(responseDto, index, asset);
+                    processor.add(index, reader.readElement());
                 }
+                processor.finish();
+                sendBatch(responseDto, batch);
+            }
+            catch (JsonProcessingException | DecompressedSizeExceededException e)
+            {
+                // the request body itself is malformed or too large, nothing after this element can be read
+                processor.finish();
+                sendBatch(responseDto, batch);
+                responseDto.addFailedAsset(index, null, AssetFailType.OTHER,
+                        new ArrayList<>(Collections.singletonList(e.getMessage())));
+                log.error(String.format(DEFAULT_ASSET_LOG_MESSAGE, mspId, e.getMessage(), index));
+            }
+        }
+
+        return completeRequest(responseDto);
+    }
 
-                if (!failReasons.isEmpty() || !asset.getWarnings()
-                        .isEmpty())
+    @RequestMapping(consumes = APPLICATION_NDJSON_VALUE, method = RequestMethod.POST, path = "send-to-ledger")
+    @Operation(summary = "Receives newline delimited assets that will the send to the blockchain. Failed assets are " +
+            "reported with their line number as index",
+            security = @SecurityRequirement(name = "Authorization"),
+            requestBody = @RequestBody(required = true, content = @Content(mediaType = APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = AssetRequestDto.class)))
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "All the assets are valid and processed with success",
+                    content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "206",
+                    description = "Partial assets are valid and successfuly processed and partial invalid asset or " +
+                            "fail the process",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "All the assets are invalid or process",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503",
+                    description = "No asset could be handed to Kafka right now, retry after the Retry-After seconds",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))})})
+    public ResponseEntity<SentToLedgerResponseDto> sendNdjsonToLedger(InputStream request) throws IOException
+    {
+        SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
+        String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
+        responseDto.setMspId(mspId);
+
+        List<AssetResult> batch = new ArrayList<>();
+        int sendBatchSize = sendBatchSize(mspId);
+        int lineNumber = 1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request, StandardCharsets.UTF_8));
+             OrderedChunkProcessor<String, AssetResult> processor = ingestExecutor.newProcessor(
+                     (index, line) -> processLine(responseDto, mspId, index, line),
+                     result -> addToBatch(responseDto, batch, sendBatchSize, result)))
+        {
+            try
+            {
+                for (String line = reader.readLine(); line != null; line = reader.readLine(), lineNumber++)
                 {
-                    responseDto.addFailedAsset(index, jsonRequestAsset, AssetFailType.VALIDATION,
-                            failReasons, asset.getWarnings());
+                    if (!line.trim()
+                            .isEmpty())
+                    {
+                        processor.add(lineNumber, line);
+                    }
                 }
+                processor.finish();
+                sendBatch(responseDto, batch);
             }
-            catch (JsonProcessingException e)
+            catch (DecompressedSizeExceededException e)
             {
-                responseDto.addFailedAsset(index, jsonRequestAsset, AssetFailType.OTHER,
+                processor.finish();
+                sendBatch(responseDto, batch);
+                responseDto.addFailedAsset(lineNumber, null, AssetFailType.OTHER,
                         new ArrayList<>(Collections.singletonList(e.getMessage())));
-                log.error(String.format(DEFAULT_ASSET_LOG_MESSAGE, mspId, e.getMessage(), index));
+                log.error(String.format(DEFAULT_ASSET_LOG_MESSAGE, mspId, e.getMessage(), lineNumber));
             }
         }
-        if (!responseDto.getFailedAssets()
-                .isEmpty())
+
+        return completeRequest(responseDto);
+    }
+
+    private AssetRequestStreamReader openRequest(JsonParser parser) throws IOException
+    {
+        try
         {
-            failedAssetReportService.publishAssetIngestReport(responseDto);
+            return new AssetRequestStreamReader(parser);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage(), e);
         }
+        catch (DecompressedSizeExceededException e)
+        {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage(), e);
+        }
+    }
 
-        return buildResponse(responseDto);
+    private AssetResult processLine(SentToLedgerResponseDto responseDto, String mspId, int lineNumber, String line)
+    {
+        JsonNode next;
+        try
+        {
+            next = codec.readTree(line);
+        }
+        catch (JsonProcessingException e)
+        {
+            log.error(String.format(DEFAULT_ASSET_LOG_MESSAGE, mspId, e.getMessage(), lineNumber));
+            return AssetResult.unreadable(lineNumber, line, e.getMessage());
+        }
+        return processAsset(responseDto, mspId, lineNumber, next);
     }
 
-    private List<String> validateAsset(AssetRequestDto asset)
+    /**
+     * Reads, validates and maps one request asset; runs on the ingest workers unless they are disabled. The parsed
+     * element is kept as the handle to the request asset; it is only written back to JSON for assets that end up in
+     * the failure report.
+     */
+    private AssetResult processAsset(SentToLedgerResponseDto responseDto, String mspId, int index, JsonNode next)
     {
-        Validator validator = Validation.buildDefaultValidatorFactory()
-                .getValidator();
+        AssetRequestDto asset;
+        try
+        {
+            asset = codec.readAssetRequest(next);
+        }
+        catch (JsonProcessingException e)
+        {
+            log.error(String.format(DEFAULT_ASSET_LOG_MESSAGE, mspId, e.getMessage(), index));
+            return AssetResult.unreadable(index, codec.writeTree(next), e.getMessage());
+        }
 
-        Set<ConstraintViolation<AssetRequestDto>> violations = validator.validate(asset);
-        return violations.stream()
-                .map(ConstraintViolation::getMessage)
-                .collect(Collectors.toList());
+        AssetResult result = new AssetResult(index, asset, validator.validate(asset));
+        if (result.failReasons.isEmpty())
+        {
+            try
+            {
+                result.ledgerAsset = assetService.prepare(asset, responseDto.getRequestProcessId(),
+                        responseDto.getRequestDate());
+            }
+            catch (Exception exception)
+            {
+                result.error = exception.getMessage();
+            }
+        }
+        if (!result.failReasons.isEmpty() || !asset.getWarnings()
+                .isEmpty())
+        {
+            result.jsonRequestAsset = codec.writeTree(next);
+        }
+        return result;
     }
 
-    private void processValidAsset(SentToLedgerResponseDto responseDto, int index, AssetRequestDto asset)
+    /**
+     * The assets of a tenant in transactional mode are sent as one batch, so the whole request is one transaction; it
+     * is held in memory up to {@code asset.delivery.transaction.max-assets} assets.
+     */
+    private int sendBatchSize(String mspId)
     {
-        try
+        return deliveryProperties.modeFor(mspId)
+                .isTransactional() ? Integer.MAX_VALUE : ingestExecutor.getSendBatchSize();
+    }
+
+    /**
+     * Collects the processed assets on the request thread, in request order, until a batch is full. A transactional
+     * request beyond its limit is rejected before any of its assets is sent.
+     */
+    private void addToBatch(SentToLedgerResponseDto responseDto, List<AssetResult> batch, int sendBatchSize,
+                            AssetResult result)
+    {
+        batch.add(result);
+        int maxTransactionAssets = deliveryProperties.getTransaction()
+                .getMaxAssets();
+        if (batch.size() >= sendBatchSize)
+        {
+            sendBatch(responseDto, batch);
+        }
+        else if (batch.size() > maxTransactionAssets && deliveryProperties.modeFor(responseDto.getMspId())
+                .isTransactional())
         {
-            assetService.sendToLedger(asset, responseDto.getRequestProcessId());
-            responseDto.addProcessedAssetIndex(index);
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, String.format(
+                    "A request of a transactional tenant may hold at most %s assets", maxTransactionAssets));
+        }
+    }
+
+    /**
+     * Sends the valid assets of the batch to the ledger in one call, then records the outcome of every asset of the
+     * batch in request order.
+     */
+    private void sendBatch(SentToLedgerResponseDto responseDto, List<AssetResult> batch)
+    {
+        List<Asset> ledgerAssets = batch.stream()
+                .filter(AssetResult::isSendable)
+                .map(result -> result.ledgerAsset)
+                .collect(Collectors.toList());
+        Iterator<CompletableFuture<Void>> deliveries = ledgerAssets.isEmpty() ? Collections.emptyIterator() :
+                assetService.send(ledgerAssets)
+                        .iterator();
+
+        for (AssetResult result : batch)
+        {
+            if (result.asset == null)
+            {
+                responseDto.addFailedAsset(result.index, result.jsonRequestAsset, AssetFailType.OTHER,
+                        new ArrayList<>(Collections.singletonList(result.error)));
+                continue;
+            }
+
+            if (result.failReasons.isEmpty())
+            {
+                String error = result.error;
+                if (result.isSendable())
+                {
+                    Throwable failure = DeliveryFutures.failure(deliveries.next());
+                    error = failure == null ? null : DeliveryFutures.failureMessage(failure);
+                    if (failure instanceof DeliveryRejectedException)
+                    {
+                        responseDto.addDeliveryRejection(retryAfter(failure));
+                    }
+                }
+                if (error == null)
+                {
+                    responseDto.addProcessedAssetIndex(result.index);
+                }
+                else
+                {
+                    responseDto.addFailedAsset(result.index, result.asset.toString(), AssetFailType.OTHER,
+                            Collections.singletonList(error));
+                }
+            }
+
+            if (!result.failReasons.isEmpty() || !result.asset.getWarnings()
+                    .isEmpty())
+            {
+                responseDto.addFailedAsset(result.index, result.jsonRequestAsset, AssetFailType.VALIDATION,
+                        result.failReasons, result.asset.getWarnings());
+            }
         }
-        catch (Exception exception)
+        batch.clear();
+    }
+
+    private ResponseEntity<SentToLedgerResponseDto> completeRequest(SentToLedgerResponseDto responseDto)
+    {
+        if (!responseDto.getFailedAssets()
+                .isEmpty())
         {
-            responseDto.addFailedAsset(index, asset.toString(), AssetFailType.OTHER,
-                    Collections.singletonList(exception.getMessage()));
+            failedAssetReportService.publishAssetIngestReport(responseDto);
         }
+
+        return buildResponse(responseDto);
     }
 
     private ResponseEntity<SentToLedgerResponseDto> buildResponse(SentToLedgerResponseDto responseDto)
@@ -187,7 +432,16 @@ public class AssetController
                 .isEmpty();
         logExceptions(responseDto.getFailedAssets());
 
-        if (!hasValidAssets && hasViolations)
+        if (responseDto.isDeliveryRejected())
+        {
+            // some assets can be sent again once the producer caught up or the circuit breaker closed
+            String retryAfter = String.valueOf(responseDto.getRetryAfter()
+                    .getSeconds());
+            return status(hasValidAssets ? HttpStatus.PARTIAL_CONTENT : HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                    .body(responseDto);
+        }
+        else if (!hasValidAssets && hasViolations)
         {
             return status(HttpStatus.BAD_REQUEST).body(responseDto);
         }
@@ -201,6 +455,17 @@ public class AssetController
         }
     }
 
+    /**
+     * How long the client should wait before sending a rejected asset again: until the open circuit breaker of its
+     * topic lets sends through again, otherwise {@code asset.delivery.retry-after}.
+     */
+    private Duration retryAfter(Throwable rejection)
+    {
+        Duration circuitOpen = rejection instanceof CircuitOpenException ?
+                ((CircuitOpenException) rejection).getRetryAfter() : null;
+        return circuitOpen == null ? deliveryProperties.getRetryAfter() : circuitOpen;
+    }
+
     private void logExceptions(List<AssetFailedReportResponseDto> invalidAssets)
     {
         String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
@@ -219,4 +484,37 @@ public class AssetController
                                             assetFailedReport.getIndex())));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * What the ingest workers found out about one request asset.
+     */
+    private static class AssetResult
+    {
+        private final int index;
+        private final AssetRequestDto asset;
+        private final List<String> failReasons;
+        private Asset ledgerAsset;
+        private String jsonRequestAsset;
+        private String error;
+
+        AssetResult(int index, AssetRequestDto asset, List<String> failReasons)
+        {
+            this.index = index;
+            this.asset = asset;
+            this.failReasons = failReasons;
+        }
+
+        boolean isSendable()
+        {
+            return ledgerAsset != null;
+        }
+
+        static AssetResult unreadable(int index, String jsonRequestAsset, String error)
+        {
+            AssetResult result = new AssetResult(index, null, Collections.emptyList());
+            result.jsonRequestAsset = jsonRequestAsset;
+            result.error = error;
+            return result;
+        }
+    }
+}
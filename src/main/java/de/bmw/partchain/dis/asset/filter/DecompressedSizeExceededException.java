@@ -0,0 +1,32 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.filter;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a compressed request body once it inflates past the configured ceiling.
+ */
+public class DecompressedSizeExceededException extends IOException
+{
+    public DecompressedSizeExceededException(long limit)
+    {
+        super(String.format("The decompressed request body exceeds the limit of %s bytes", limit));
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.filter;
+
+import com.github.luben.zstd.ZstdInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes gzip, deflate and zstd encoded request bodies while they are read, so the parser is fed incrementally and
+ * the body is never inflated into memory. The decoded body may not grow past {@code maxDecompressedSize} bytes;
+ * requests with any other {@code Content-Encoding} are rejected with 415.
+ */
+@Slf4j
+public class RequestDecompressionFilter extends OncePerRequestFilter
+{
+    public static final String SUPPORTED_ENCODINGS = "gzip, deflate, zstd";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long maxDecompressedSize;
+
+    public RequestDecompressionFilter(long maxDecompressedSize)
+    {
+        this.maxDecompressedSize = maxDecompressedSize;
+        log.info(String.format("[INIT LOAD] RequestDecompressionFilter initialized, max decompressed size: %s bytes.",
+                maxDecompressedSize));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request)
+    {
+        return request.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        List<String> encodings = parseEncodings(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        for (String encoding : encodings)
+        {
+            if (!isSupported(encoding))
+            {
+                log.warn(String.format("[DIS] Rejected request with unsupported Content-Encoding: %s", encoding));
+                response.setHeader(HttpHeaders.ACCEPT_ENCODING, SUPPORTED_ENCODINGS);
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                        String.format("Unsupported Content-Encoding: %s", encoding));
+                return;
+            }
+        }
+
+        if (encodings.isEmpty())
+        {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        DecompressingRequest decompressingRequest = new DecompressingRequest(request, encodings, maxDecompressedSize);
+        try
+        {
+            filterChain.doFilter(decompressingRequest, response);
+        }
+        finally
+        {
+            decompressingRequest.close();
+        }
+    }
+
+    private static List<String> parseEncodings(String header)
+    {
+        return Arrays.stream(StringUtils.commaDelimitedListToStringArray(header))
+                .map(encoding -> encoding.trim()
+                        .toLowerCase(Locale.ROOT))
+                .filter(encoding -> !encoding.isEmpty() && !"identity".equals(encoding))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isSupported(String encoding)
+    {
+        switch (encoding)
+        {
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+            case "zstd":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Wraps the stream in the decoder for a single encoding.
+     */
+    static InputStream decode(InputStream in, String encoding) throws IOException
+    {
+        switch (encoding)
+        {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case "deflate":
+                return inflate(in);
+            case "zstd":
+                return new ZstdInputStream(in);
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported Content-Encoding: %s", encoding));
+        }
+    }
+
+    /**
+     * HTTP deflate is zlib wrapped, but some clients send raw deflate data, so the zlib header is checked first.
+     */
+    private static InputStream inflate(InputStream in) throws IOException
+    {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] header = new byte[2];
+        int read = 0;
+        while (read < header.length)
+        {
+            int n = pushback.read(header, read, header.length - read);
+            if (n == -1)
+            {
+                break;
+            }
+            read += n;
+        }
+        boolean zlib = read == 2 && (header[0] & 0x0f) == 8 && ((header[0] & 0xff) << 8 | header[1] & 0xff) % 31 == 0;
+        if (read > 0)
+        {
+            pushback.unread(header, 0, read);
+        }
+
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(pushback, inflater, BUFFER_SIZE)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private static class DecompressingRequest extends HttpServletRequestWrapper
+    {
+        private final List<String> encodings;
+        private final long maxDecompressedSize;
+        private DecompressingInputStream inputStream;
+        private BufferedReader reader;
+
+        DecompressingRequest(HttpServletRequest request, List<String> encodings, long maxDecompressedSize)
+        {
+            super(request);
+            this.encodings = encodings;
+            this.maxDecompressedSize = maxDecompressedSize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException
+        {
+            if (reader != null)
+            {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            if (inputStream == null)
+            {
+                // encodings are listed in the order they were applied, so they are decoded in reverse
+                InputStream decoded = super.getInputStream();
+                for (int i = encodings.size() - 1; i >= 0; i--)
+                {
+                    decoded = decode(decoded, encodings.get(i));
+                }
+                inputStream = new DecompressingInputStream(new SizeLimitInputStream(decoded, maxDecompressedSize));
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException
+        {
+            if (reader == null)
+            {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? StandardCharsets.UTF_8.name() : encoding));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength()
+        {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong()
+        {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name)
+        {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames()
+        {
+            return Collections.enumeration(Collections.list(super.getHeaderNames())
+                    .stream()
+                    .filter(name -> !isHidden(name))
+                    .collect(Collectors.toList()));
+        }
+
+        void close()
+        {
+            if (inputStream != null)
+            {
+                try
+                {
+                    inputStream.close();
+                }
+                catch (IOException e)
+                {
+                    log.debug("[DIS] Failed to close the decompressed request body", e);
+                }
+            }
+        }
+
+        private static boolean isHidden(String name)
+        {
+            // the body handed on is decoded, so its encoding and length no longer apply
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) ||
+                    HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static class DecompressingInputStream extends ServletInputStream
+    {
+        private final InputStream in;
+        private boolean finished;
+
+        DecompressingInputStream(InputStream in)
+        {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int result = in.read();
+            finished = result == -1;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int result = in.read(b, off, len);
+            finished = result == -1;
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady()
+        {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener)
+        {
+            throw new UnsupportedOperationException("Decompressed request bodies can only be read blocking");
+        }
+    }
+}
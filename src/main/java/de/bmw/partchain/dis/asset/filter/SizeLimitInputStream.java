@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.filter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from the wrapped stream and fails as soon as more than {@code limit} bytes were read.
+ */
+class SizeLimitInputStream extends FilterInputStream
+{
+    private final long limit;
+    private long count;
+
+    SizeLimitInputStream(InputStream in, long limit)
+    {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int result = super.read();
+        if (result != -1)
+        {
+            count(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        int result = super.read(b, off, len);
+        if (result > 0)
+        {
+            count(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long result = super.skip(n);
+        count(result);
+        return result;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    private void count(long read) throws DecompressedSizeExceededException
+    {
+        count += read;
+        if (count > limit)
+        {
+            throw new DecompressedSizeExceededException(limit);
+        }
+    }
+}
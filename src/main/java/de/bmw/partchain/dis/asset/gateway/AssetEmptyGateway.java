@@ -22,6 +22,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "ledger.gateway", havingValue = "local")
@@ -33,8 +37,14 @@ public class AssetEmptyGateway implements AssetGateway
     }
 
     @Override
-    public void sendToLedger(Asset asset)
+    public List<CompletableFuture<Void>> sendToLedger(List<Asset> assets)
     {
-        log.info(String.format("Sent to ledger asset serialNumber '%s'", asset.getSerialNumberManufacturer()));
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(assets.size());
+        for (Asset asset : assets)
+        {
+            log.info(String.format("Sent to ledger asset serialNumber '%s'", asset.getSerialNumberManufacturer()));
+            deliveries.add(CompletableFuture.completedFuture(null));
+        }
+        return deliveries;
     }
 }
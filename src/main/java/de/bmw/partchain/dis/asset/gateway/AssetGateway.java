@@ -19,7 +19,13 @@ package de.bmw.partchain.dis.asset.gateway;
 
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface AssetGateway
 {
-    void sendToLedger(Asset asset);
+    /**
+     * Sends a batch of assets and returns one delivery result per asset, in the same order.
+     */
+    List<CompletableFuture<Void>> sendToLedger(List<Asset> assets);
 }
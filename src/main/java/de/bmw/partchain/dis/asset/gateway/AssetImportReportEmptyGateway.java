@@ -18,10 +18,13 @@
 package de.bmw.partchain.dis.asset.gateway;
 
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "airs.gateway", havingValue = "local")
@@ -38,4 +41,12 @@ public class AssetImportReportEmptyGateway implements AssetImportReportGateway
     {
         log.info(String.format("Sent to kafka asset fail report for request process id: %s", assetFailReport.getRequestProcessId()));
     }
+
+    @Override
+    public CompletableFuture<Void> publishAssetIngestSummary(AssetIngestSummary assetIngestSummary)
+    {
+        log.info(String.format("Sent to kafka asset fail summary of %s assets for request process id: %s",
+                assetIngestSummary.getFailedAssets(), assetIngestSummary.getRequestProcessId()));
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -18,8 +18,28 @@
 package de.bmw.partchain.dis.asset.gateway;
 
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public interface AssetImportReportGateway
 {
     void publishAssetIngestReport(AssetIngestReport assetIngestReport);
+
+    /**
+     * Publishes the failed assets of one request grouped by reason.
+     */
+    CompletableFuture<Void> publishAssetIngestSummary(AssetIngestSummary assetIngestSummary);
+
+    /**
+     * Publishes the reports of one request and returns one delivery result per report, in the same order.
+     */
+    default List<CompletableFuture<Void>> publishAssetIngestReports(List<AssetIngestReport> assetIngestReports)
+    {
+        return assetIngestReports.stream()
+                .map(assetIngestReport -> DeliveryFutures.run(() -> publishAssetIngestReport(assetIngestReport)))
+                .collect(Collectors.toList());
+    }
 }
@@ -17,21 +17,50 @@
 
 package de.bmw.partchain.dis.asset.gateway;
 
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+import de.bmw.partchain.dis.asset.wire.ZstdDictionary;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "airs.gateway", havingValue = "kafka",matchIfMissing = true)
 public class AssetIngestReportKafkaGateway implements AssetImportReportGateway{
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private static final String REPORT_TOPIC = "failedAssetReport";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final AssetJsonCodec codec;
+    private final boolean stripHeaderFields;
+    private final ZstdDictionary dictionary;
+    private final Header dictionaryHeader;
+    private final String summaryTopic;
+    private final CircuitBreakers circuitBreakers;
 
-    public AssetIngestReportKafkaGateway(KafkaTemplate<String, String> kafkaTemplate)
+    public AssetIngestReportKafkaGateway(KafkaTemplate<String, byte[]> kafkaTemplate, AssetJsonCodec codec,
+                                         @Value("${kafka.stripHeaderFields:false}") boolean stripHeaderFields,
+                                         @Value("${kafka.compression.reportDictionary:}") String dictionary,
+                                         @Value("${kafka.compression.level:3}") int compressionLevel,
+                                         @Value("${airs.summaryTopic:failedAssetReportSummary}") String summaryTopic,
+                                         CircuitBreakers circuitBreakers)
     {
         this.kafkaTemplate = kafkaTemplate;
+        this.codec = codec;
+        this.stripHeaderFields = stripHeaderFields;
+        this.dictionary = dictionary.isEmpty() ? null : ZstdDictionary.load(dictionary, compressionLevel);
+        this.dictionaryHeader = RecordHeaderEncoder.dictionaryHeader(this.dictionary);
+        this.summaryTopic = summaryTopic;
+        this.circuitBreakers = circuitBreakers;
         log.info("[INIT LOAD] AssetIngestReportKafkaGateway initialized.");
 
     }
@@ -39,6 +68,53 @@ public class AssetIngestReportKafkaGateway implements AssetImportReportGateway{
 
     public void publishAssetIngestReport(AssetIngestReport assetIngestReport)
     {
-        kafkaTemplate.send("failedAssetReport", assetIngestReport.toString());
+        publish(assetIngestReport, new RecordHeaderEncoder());
+    }
+
+    @Override
+    public List<CompletableFuture<Void>> publishAssetIngestReports(List<AssetIngestReport> assetIngestReports)
+    {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(assetIngestReports.size());
+        RecordHeaderEncoder headerEncoder = new RecordHeaderEncoder();
+        for (AssetIngestReport assetIngestReport : assetIngestReports)
+        {
+            deliveries.add(publish(assetIngestReport, headerEncoder));
+        }
+        kafkaTemplate.flush();
+        return deliveries;
+    }
+
+    private CompletableFuture<Void> publish(AssetIngestReport assetIngestReport, RecordHeaderEncoder headerEncoder)
+    {
+        return circuitBreakers.call(REPORT_TOPIC, () -> kafkaTemplate.send(record(assetIngestReport, headerEncoder))
+                .completable()
+                .thenAccept(result -> {
+                }));
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAssetIngestSummary(AssetIngestSummary assetIngestSummary)
+    {
+        return circuitBreakers.call(summaryTopic, () -> kafkaTemplate.send(new ProducerRecord<String, byte[]>(
+                summaryTopic, null, null, codec.writeAssetIngestSummaryBytes(assetIngestSummary),
+                new RecordHeaderEncoder().headers(assetIngestSummary)))
+                .completable()
+                .thenAccept(result -> {
+                }));
+    }
+
+    private ProducerRecord<String, byte[]> record(AssetIngestReport assetIngestReport,
+                                                  RecordHeaderEncoder headerEncoder)
+    {
+        byte[] body = stripHeaderFields ? codec.writeAssetIngestReportBodyBytes(assetIngestReport) :
+                codec.writeAssetIngestReportBytes(assetIngestReport);
+        List<Header> headers = headerEncoder.headers(assetIngestReport);
+        if (dictionary != null)
+        {
+            body = dictionary.compress(body);
+            headers = new ArrayList<>(headers);
+            headers.add(dictionaryHeader);
+        }
+        return new ProducerRecord<String, byte[]>(REPORT_TOPIC, null, null, body, headers);
     }
 }
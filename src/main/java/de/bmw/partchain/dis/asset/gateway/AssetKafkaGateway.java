@@ -17,28 +17,323 @@
 
 package de.bmw.partchain.dis.asset.gateway;
 
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.wire.AssetBinaryEncoder;
+import de.bmw.partchain.dis.asset.wire.ZstdDictionary;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties.ProducerSettings;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes assets to the topic of their tenant, keyed by manufacturer and serial number and with their routing
+ * metadata as record headers. Every {@link DeliveryMode}
+ * has its own producer with the matching acks setting, and heavy tenants can be given producers of their own (see
+ * {@link PooledProducer}). Sends do not wait for producer capacity: once {@code asset.delivery.max-in-flight} sends of
+ * a producer wait for the broker, or its buffer runs low, further assets fail right away with a
+ * {@link DeliveryRejectedException}. The buffer is checked before each send and each transaction, but the check reads
+ * metrics up to a second old and is not atomic with the send, so a burst of concurrent sends can still fill the buffer
+ * and block a send for up to {@code kafka.maxBlockMs}; the first send to a topic also waits that long for its
+ * metadata. Tenants in {@link DeliveryMode#TRANSACTIONAL} mode get all assets of a request written in one Kafka
+ * transaction. While the {@link CircuitBreakers circuit breaker} of a tenant topic is open, its
+ * assets fail right away with a {@link CircuitOpenException}.
+ */
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "ledger.gateway", havingValue = "kafka",matchIfMissing = true)
-public class AssetKafkaGateway implements AssetGateway
+public class AssetKafkaGateway implements AssetGateway, DisposableBean
 {
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ConcurrentMap<String, PooledProducer> producers = new ConcurrentHashMap<>();
+    private final ProducerFactory<String, byte[]> producerFactory;
+    private final AssetJsonCodec codec;
+    private final AssetBinaryEncoder binaryEncoder;
+    private final AssetDeliveryProperties deliveryProperties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakers circuitBreakers;
+    private final boolean stripHeaderFields;
+    private final int maxInFlight;
+    private final ZstdDictionary dictionary;
+    private final Header dictionaryHeader;
 
-    public AssetKafkaGateway(KafkaTemplate<String, String> kafkaTemplate)
+    public AssetKafkaGateway(ProducerFactory<String, byte[]> producerFactory, AssetJsonCodec codec,
+                             AssetBinaryEncoder binaryEncoder, AssetDeliveryProperties deliveryProperties,
+                             MeterRegistry meterRegistry, CircuitBreakers circuitBreakers,
+                             @Value("${kafka.stripHeaderFields:false}") boolean stripHeaderFields,
+                             @Value("${kafka.compression.assetDictionary:}") String dictionary,
+                             @Value("${kafka.compression.level:3}") int compressionLevel,
+                             @Value("${asset.ingest.send-batch-size:10000}") int sendBatchSize)
     {
-        this.kafkaTemplate = kafkaTemplate;
+        this.producerFactory = producerFactory;
+        this.codec = codec;
+        this.binaryEncoder = binaryEncoder;
+        this.deliveryProperties = deliveryProperties;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakers = circuitBreakers;
+        this.stripHeaderFields = stripHeaderFields;
+        this.maxInFlight = deliveryProperties.maxInFlight(sendBatchSize);
+        if (maxInFlight < 2 * sendBatchSize)
+        {
+            log.warn(String.format("[DIS] asset.delivery.max-in-flight %s allows less than two concurrent send " +
+                    "batches of %s assets, a large request can reject the others", maxInFlight, sendBatchSize));
+        }
+        this.dictionary = dictionary.isEmpty() ? null : ZstdDictionary.load(dictionary, compressionLevel);
+        this.dictionaryHeader = RecordHeaderEncoder.dictionaryHeader(this.dictionary);
         log.info("[INIT LOAD] LedgerKafkaGateway initialized.");
     }
 
+    /**
+     * Hands all assets to the producer without waiting in between, so the acknowledgements of the batch are awaited
+     * concurrently by whoever joins the returned results. The assets of tenants in
+     * {@link DeliveryMode#TRANSACTIONAL} mode are sent in one transaction per request, which is committed before
+     * this returns; the assets of a request all share its result.
+     */
+    @Override
+    public List<CompletableFuture<Void>> sendToLedger(List<Asset> assets)
+    {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(assets.size());
+        Map<List<String>, List<Integer>> transactions = new LinkedHashMap<>();
+        RecordHeaderEncoder headerEncoder = new RecordHeaderEncoder();
+        for (int i = 0; i < assets.size(); i++)
+        {
+            Asset asset = assets.get(i);
+            DeliveryMode mode = deliveryProperties.modeFor(asset.getMspId());
+            if (mode.isTransactional())
+            {
+                transactions.computeIfAbsent(Arrays.asList(asset.getMspId(), asset.getRequestProcessId()),
+                        request -> new ArrayList<>())
+                        .add(i);
+                deliveries.add(null);
+            }
+            else
+            {
+                deliveries.add(send(asset, headerEncoder));
+            }
+        }
+
+        for (List<Integer> transaction : transactions.values())
+        {
+            List<Asset> transactionAssets = new ArrayList<>(transaction.size());
+            for (int index : transaction)
+            {
+                transactionAssets.add(assets.get(index));
+            }
+            String mspId = transactionAssets.get(0)
+                    .getMspId();
+            CompletableFuture<Void> delivery = sendInTransaction(producerFor(mspId, DeliveryMode.TRANSACTIONAL),
+                    transactionAssets, headerEncoder);
+            for (int index : transaction)
+            {
+                deliveries.set(index, delivery);
+            }
+        }
+        return deliveries;
+    }
+
     @Override
-    public void sendToLedger(Asset asset)
+    public void destroy() throws Exception
+    {
+        for (PooledProducer producer : producers.values())
+        {
+            producer.destroy();
+        }
+    }
+
+    private CompletableFuture<Void> send(Asset asset, RecordHeaderEncoder headerEncoder)
+    {
+        DeliveryMode mode = deliveryProperties.modeFor(asset.getMspId());
+        PooledProducer producer = producerFor(asset.getMspId(), mode);
+        if (!producer.hasAvailableBuffer(deliveryProperties.getMinAvailableBuffer()
+                .toBytes()))
+        {
+            return reject(producer, "Kafka producer buffer is exhausted, send the asset again later");
+        }
+        if (!producer.tryAcquire())
+        {
+            return reject(producer, "Too many assets are waiting for Kafka, send the asset again later");
+        }
+        CircuitBreaker.Permit permit;
+        try
+        {
+            permit = circuitBreakers.acquire(asset.getMspId());
+        }
+        catch (CircuitOpenException e)
+        {
+            producer.release();
+            return DeliveryFutures.failed(e);
+        }
+
+        CompletableFuture<Void> delivery;
+        try
+        {
+            delivery = producer.getKafkaTemplate()
+                    .send(record(asset, headerEncoder))
+                    .completable()
+                    .thenAccept(result -> {
+                    });
+        }
+        catch (Exception e)
+        {
+            producer.release();
+            delivery = DeliveryFutures.failed(e);
+            CircuitBreakers.track(permit, delivery);
+            return delivery;
+        }
+
+        CircuitBreakers.track(permit, delivery);
+        delivery.whenComplete((result, failure) -> {
+            producer.release();
+            if (failure != null && mode == DeliveryMode.FIRE_AND_FORGET)
+            {
+                log.error(String.format("[DIS][%s] Asset serialNumber '%s' of request %s not delivered: %s",
+                        asset.getMspId(), asset.getSerialNumberManufacturer(), asset.getRequestProcessId(),
+                        failure.getMessage()));
+            }
+        });
+        return mode == DeliveryMode.FIRE_AND_FORGET ? CompletableFuture.completedFuture(null) : delivery;
+    }
+
+    /**
+     * Sends the assets in one transaction and waits for its commit, so either all of them are written or, once a
+     * send or the commit failed, the transaction is aborted and none is visible to read_committed consumers.
+     */
+    private CompletableFuture<Void> sendInTransaction(PooledProducer producer, List<Asset> assets,
+                                                      RecordHeaderEncoder headerEncoder)
+    {
+        if (!producer.tryAcquire())
+        {
+            return reject(producer, "Too many transactions are waiting for Kafka, send the assets again later");
+        }
+        List<CircuitBreaker.Permit> permits = new ArrayList<>();
+        try
+        {
+            for (String topic : assets.stream()
+                    .map(Asset::getMspId)
+                    .distinct()
+                    .collect(Collectors.toList()))
+            {
+                permits.add(circuitBreakers.acquire(topic));
+            }
+        }
+        catch (CircuitOpenException e)
+        {
+            permits.forEach(CircuitBreakers::cancel);
+            producer.release();
+            return DeliveryFutures.failed(e);
+        }
+
+        CompletableFuture<Void> delivery;
+        try
+        {
+            producer.getKafkaTemplate()
+                    .executeInTransaction(operations -> {
+                        if (!ProducerBuffer.hasAvailable(operations.metrics(), deliveryProperties
+                                .getMinAvailableBuffer()
+                                .toBytes()))
+                        {
+                            throw new DeliveryRejectedException(
+                                    "Kafka producer buffer is exhausted, send the assets again later");
+                        }
+                        for (Asset asset : assets)
+                        {
+                            operations.send(record(asset, headerEncoder));
+                        }
+                        return null;
+                    });
+            delivery = CompletableFuture.completedFuture(null);
+        }
+        catch (DeliveryRejectedException e)
+        {
+            // nothing reached the broker, so the rejection says nothing about the health of the topics
+            permits.forEach(CircuitBreakers::cancel);
+            producer.rejected();
+            return DeliveryFutures.failed(e);
+        }
+        catch (Exception e)
+        {
+            delivery = DeliveryFutures.failed(e);
+        }
+        finally
+        {
+            producer.release();
+        }
+        for (CircuitBreaker.Permit permit : permits)
+        {
+            CircuitBreakers.track(permit, delivery);
+        }
+        return delivery;
+    }
+
+    private ProducerRecord<String, byte[]> record(Asset asset, RecordHeaderEncoder headerEncoder)
+    {
+        List<Header> headers = headerEncoder.headers(asset);
+        byte[] body;
+        if (deliveryProperties.formatFor(asset.getMspId()) == WireFormat.BINARY)
+        {
+            body = binaryEncoder.encode(asset);
+        }
+        else
+        {
+            body = stripHeaderFields ? codec.writeAssetBodyBytes(asset) : codec.writeAssetBytes(asset);
+            // the dictionary is trained on JSON records, binary ones would hardly shrink
+            if (dictionary != null)
+            {
+                body = dictionary.compress(body);
+                headers.add(dictionaryHeader);
+            }
+        }
+        return new ProducerRecord<>(asset.getMspId(), null, recordKey(asset), body, headers);
+    }
+
+    /**
+     * Records of the same manufacturer and serial number share a key, so they land on the same partition in the order
+     * they were sent. The key is a name based UUID of both, which keeps it stable and of fixed length.
+     */
+    static String recordKey(Asset asset)
+    {
+        String name = asset.getManufacturer() + '\u0000' + asset.getSerialNumberManufacturer();
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    /**
+     * Heavy tenants configured in {@code asset.delivery.producers} get producers of their own, the others share one;
+     * each delivery mode needs a producer of its own as well. Producers are created on first use.
+     */
+    private PooledProducer producerFor(String mspId, DeliveryMode mode)
+    {
+        String tenant = deliveryProperties.producerFor(mspId);
+        String name = tenant == null ? PooledProducer.SHARED : tenant;
+        ProducerSettings settings = tenant == null ? deliveryProperties.getSharedProducer() :
+                deliveryProperties.getProducers()
+                        .get(tenant);
+        return producers.computeIfAbsent(name + "/" + mode,
+                key -> new PooledProducer(producerFactory, name, mode, settings, maxInFlight,
+                        deliveryProperties.getTransaction(), meterRegistry));
+    }
+
+    private CompletableFuture<Void> reject(PooledProducer producer, String reason)
     {
-         kafkaTemplate.send(asset.getMspId(), asset.toString());
+        producer.rejected();
+        return DeliveryFutures.failed(new DeliveryRejectedException(reason));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.config.CircuitBreakerProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of the sends to one topic. While closed it keeps the outcome of the last sends and opens once too
+ * many of them failed or were slow; while open every send fails right away. After the open duration a few trial
+ * sends decide whether it closes again. Outcomes of sends started before the last state change are ignored.
+ */
+@Slf4j
+final class CircuitBreaker
+{
+    enum State
+    {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String topic;
+    private final CircuitBreakerProperties properties;
+    private final LongSupplier clock;
+    private final long slowCallNanos;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int calls;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openUntil;
+    private int probes;
+    private int probeSuccesses;
+
+    CircuitBreaker(String topic, CircuitBreakerProperties properties, LongSupplier clock)
+    {
+        this.topic = topic;
+        this.properties = properties;
+        this.clock = clock;
+        this.slowCallNanos = properties.getSlowCallDuration()
+                .toNanos();
+        this.failed = new boolean[Math.max(properties.getWindowSize(), 1)];
+        this.slow = new boolean[failed.length];
+    }
+
+    /**
+     * @return the permit to send, whose outcome must be recorded, or null while the breaker is open
+     */
+    synchronized Permit tryAcquire()
+    {
+        long now = clock.getAsLong();
+        if (state == State.OPEN)
+        {
+            if (now - openUntil < 0)
+            {
+                return null;
+            }
+            transition(State.HALF_OPEN, now);
+        }
+        if (state == State.HALF_OPEN)
+        {
+            if (probes >= properties.getHalfOpenCalls())
+            {
+                return null;
+            }
+            probes++;
+        }
+        return new Permit(epoch, now);
+    }
+
+    synchronized State getState()
+    {
+        return state;
+    }
+
+    synchronized CircuitOpenException openException()
+    {
+        if (state != State.OPEN)
+        {
+            return new CircuitOpenException(String.format(
+                    "Kafka topic '%s' is being probed after failures, send the asset again later", topic), null);
+        }
+        // rounded up, so a client waiting this long finds the breaker half open
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(openUntil - clock.getAsLong() +
+                TimeUnit.SECONDS.toNanos(1) - 1));
+        return new CircuitOpenException(String.format(
+                "Kafka topic '%s' is failing, sends are suspended for %d s, send the asset again later", topic,
+                seconds), Duration.ofSeconds(seconds));
+    }
+
+    private synchronized void cancel(Permit permit)
+    {
+        if (permit.epoch == epoch && state == State.HALF_OPEN)
+        {
+            probes--;
+        }
+    }
+
+    private synchronized void record(Permit permit, boolean failure)
+    {
+        if (permit.epoch != epoch)
+        {
+            return;
+        }
+        long now = clock.getAsLong();
+        boolean slowCall = now - permit.start > slowCallNanos;
+        if (state == State.HALF_OPEN)
+        {
+            if (failure || slowCall)
+            {
+                transition(State.OPEN, now);
+            }
+            else if (++probeSuccesses >= properties.getHalfOpenCalls())
+            {
+                transition(State.CLOSED, now);
+            }
+            return;
+        }
+
+        if (calls == failed.length)
+        {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        }
+        else
+        {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+        if (calls >= properties.getMinimumCalls() && (failures * 100 >= properties.getFailureRateThreshold() * calls ||
+                slowCalls * 100 >= properties.getSlowCallRateThreshold() * calls))
+        {
+            transition(State.OPEN, now);
+        }
+    }
+
+    private void transition(State to, long now)
+    {
+        if (to == State.OPEN)
+        {
+            openUntil = now + properties.getOpenDuration()
+                    .toNanos();
+            log.warn(state == State.HALF_OPEN ?
+                    String.format("[DIS] Circuit breaker of Kafka topic '%s' opened again, a trial send failed.",
+                            topic) :
+                    String.format("[DIS] Circuit breaker of Kafka topic '%s' opened, %d of %d sends failed, %d slow.",
+                            topic, failures, calls, slowCalls));
+        }
+        else
+        {
+            log.info(String.format("[DIS] Circuit breaker of Kafka topic '%s' is %s.", topic, to));
+        }
+        state = to;
+        epoch++;
+        calls = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        probes = 0;
+        probeSuccesses = 0;
+    }
+
+    /**
+     * One send let through by the breaker.
+     */
+    final class Permit
+    {
+        private final long epoch;
+        private final long start;
+
+        private Permit(long epoch, long start)
+        {
+            this.epoch = epoch;
+            this.start = start;
+        }
+
+        void track(CompletableFuture<?> result)
+        {
+            result.whenComplete((ignored, failure) -> record(this, failure != null));
+        }
+
+        /**
+         * Gives the permit back unused.
+         */
+        void cancel()
+        {
+            CircuitBreaker.this.cancel(this);
+        }
+    }
+}
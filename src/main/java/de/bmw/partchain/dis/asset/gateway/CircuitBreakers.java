@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The circuit breakers of the Kafka gateways, one per topic, so a failing tenant topic only suspends the sends of
+ * that tenant. Each publishes its state as {@code dis.kafka.circuit.state} (0 closed, 1 half open, 2 open) and the
+ * sends it failed as {@code dis.kafka.circuit.rejected}, tagged with the topic.
+ */
+@Slf4j
+@Component
+public class CircuitBreakers
+{
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public CircuitBreakers(CircuitBreakerProperties properties, MeterRegistry meterRegistry)
+    {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        log.info(String.format("[INIT LOAD] CircuitBreakers initialized, %s.", properties.isEnabled() ? "enabled" :
+                "disabled"));
+    }
+
+    /**
+     * @return the permit to send to the topic, whose outcome must be tracked, or null if the breakers are disabled
+     * @throws CircuitOpenException while the breaker of the topic is open
+     */
+    CircuitBreaker.Permit acquire(String topic)
+    {
+        if (!properties.isEnabled())
+        {
+            return null;
+        }
+        Breaker breaker = breakers.computeIfAbsent(String.valueOf(topic), this::register);
+        CircuitBreaker.Permit permit = breaker.circuitBreaker.tryAcquire();
+        if (permit == null)
+        {
+            breaker.rejected.increment();
+            throw breaker.circuitBreaker.openException();
+        }
+        return permit;
+    }
+
+    /**
+     * Runs the send unless the breaker of the topic is open, and tracks its outcome.
+     */
+    CompletableFuture<Void> call(String topic, Supplier<CompletableFuture<Void>> send)
+    {
+        CircuitBreaker.Permit permit;
+        try
+        {
+            permit = acquire(topic);
+        }
+        catch (CircuitOpenException e)
+        {
+            return DeliveryFutures.failed(e);
+        }
+
+        CompletableFuture<Void> result;
+        try
+        {
+            result = send.get();
+        }
+        catch (Exception e)
+        {
+            result = DeliveryFutures.failed(e);
+        }
+        track(permit, result);
+        return result;
+    }
+
+    static void track(CircuitBreaker.Permit permit, CompletableFuture<?> result)
+    {
+        if (permit != null)
+        {
+            permit.track(result);
+        }
+    }
+
+    static void cancel(CircuitBreaker.Permit permit)
+    {
+        if (permit != null)
+        {
+            permit.cancel();
+        }
+    }
+
+    /**
+     * @return the state of the breaker per topic sent to so far
+     */
+    public Map<String, String> states()
+    {
+        Map<String, String> states = new TreeMap<>();
+        breakers.forEach((topic, breaker) -> states.put(topic, breaker.circuitBreaker.getState()
+                .name()));
+        return states;
+    }
+
+    private Breaker register(String topic)
+    {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(topic, properties, System::nanoTime);
+        Tags tags = Tags.of("topic", topic);
+        Gauge.builder("dis.kafka.circuit.state", circuitBreaker, breaker -> breaker.getState()
+                .ordinal())
+                .description("State of the circuit breaker of the topic: 0 closed, 1 half open, 2 open")
+                .tags(tags)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("dis.kafka.circuit.rejected")
+                .description("Sends failed right away because the circuit breaker of the topic was open")
+                .tags(tags)
+                .register(meterRegistry);
+        return new Breaker(circuitBreaker, rejected);
+    }
+
+    private static final class Breaker
+    {
+        private final CircuitBreaker circuitBreaker;
+        private final Counter rejected;
+
+        private Breaker(CircuitBreaker circuitBreaker, Counter rejected)
+        {
+            this.circuitBreaker = circuitBreaker;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import java.time.Duration;
+
+/**
+ * The circuit breaker of the topic is open: sends to it failed or took too long recently, and are not tried for now.
+ */
+public class CircuitOpenException extends DeliveryRejectedException
+{
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String message, Duration retryAfter)
+    {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long the breaker stays open, or null while it is probing the topic
+     */
+    public Duration getRetryAfter()
+    {
+        return retryAfter;
+    }
+}
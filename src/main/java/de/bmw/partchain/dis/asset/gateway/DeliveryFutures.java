@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.common.errors.RetriableException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for the per element results of the batch gateway operations.
+ */
+public final class DeliveryFutures
+{
+    private DeliveryFutures()
+    {
+    }
+
+    /**
+     * Runs a send that completes on return, turning an exception into a failed result.
+     */
+    public static CompletableFuture<Void> run(Runnable send)
+    {
+        try
+        {
+            send.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        catch (Exception e)
+        {
+            return failed(e);
+        }
+    }
+
+    public static CompletableFuture<Void> failed(Throwable cause)
+    {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        result.completeExceptionally(cause);
+        return result;
+    }
+
+    /**
+     * Waits for the delivery and returns why it failed, or null once it succeeded.
+     */
+    public static String failureMessage(CompletableFuture<Void> delivery)
+    {
+        Throwable failure = failure(delivery);
+        return failure == null ? null : failureMessage(failure);
+    }
+
+    public static String failureMessage(Throwable failure)
+    {
+        return failure.getMessage() == null ? failure.toString() : failure.getMessage();
+    }
+
+    /**
+     * Failures a later send may not run into: the producer had no capacity, or Kafka failed for a reason it
+     * considers retriable, such as a timeout or a leader election.
+     */
+    public static boolean isTransient(Throwable failure)
+    {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof DeliveryRejectedException || cause instanceof RetriableException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the delivery and returns the exception it failed with, or null once it succeeded.
+     */
+    public static Throwable failure(CompletableFuture<Void> delivery)
+    {
+        try
+        {
+            delivery.join();
+            return null;
+        }
+        catch (CompletionException e)
+        {
+            return e.getCause() == null ? e : e.getCause();
+        }
+        catch (CancellationException e)
+        {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How long a ledger send waits for the broker before the asset counts as processed. Every mode keeps the records of
+ * one key in order: with all replicas the producer is idempotent, which keeps the order with several requests in
+ * flight; with leader acks retries could reorder them, so only one request is in flight per connection.
+ */
+public enum DeliveryMode
+{
+    /**
+     * Processed once handed to the producer; broker failures are only logged.
+     */
+    FIRE_AND_FORGET("0", false, 5),
+    /**
+     * Processed once the partition leader acknowledged the asset.
+     */
+    LEADER("1", false, 1),
+    /**
+     * Processed once all in-sync replicas acknowledged the asset.
+     */
+    ALL("all", true, 5),
+    /**
+     * Like {@link #ALL}, but the assets sent together are written in one Kafka transaction, so either all of them
+     * reach the ledger topic or none does.
+     */
+    TRANSACTIONAL("all", true, 5);
+
+    private final String acks;
+    private final boolean idempotent;
+    private final int maxInFlightRequests;
+
+    DeliveryMode(String acks, boolean idempotent, int maxInFlightRequests)
+    {
+        this.acks = acks;
+        this.idempotent = idempotent;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public String getAcks()
+    {
+        return acks;
+    }
+
+    public boolean isTransactional()
+    {
+        return this == TRANSACTIONAL;
+    }
+
+    /**
+     * The producer settings of this mode, applied on top of the shared producer factory.
+     */
+    public Map<String, Object> getProducerConfig()
+    {
+        Map<String, Object> producerConfig = new HashMap<>();
+        producerConfig.put(ProducerConfig.ACKS_CONFIG, acks);
+        producerConfig.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotent);
+        producerConfig.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        return producerConfig;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.config.AssetDeliveryProperties.ProducerSettings;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties.TransactionSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * One producer of the pool behind {@link AssetKafkaGateway}, either of a single heavy tenant or shared by the rest.
+ * It has its own buffer, batch and linger settings and its own limit of sends waiting for the broker, so a tenant
+ * filling its producer does not stall the tenants on other producers. Its metrics are tagged with the producer name
+ * and delivery mode. A transactional producer is a pool of producers with transactional ids of the same prefix,
+ * so concurrent transactions do not wait for each other.
+ */
+final class PooledProducer
+{
+    static final String SHARED = "shared";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ProducerBuffer producerBuffer;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Counter rejected;
+
+    PooledProducer(ProducerFactory<String, byte[]> producerFactory, String name, DeliveryMode mode,
+                   ProducerSettings settings, int defaultMaxInFlight, TransactionSettings transactionSettings,
+                   MeterRegistry meterRegistry)
+    {
+        String modeTag = mode.name()
+                .toLowerCase(Locale.ROOT);
+        Map<String, Object> producerConfig = mode.getProducerConfig();
+        if (!mode.isTransactional())
+        {
+            // transactional producers are pooled by the factory and get unique ids from their transactional.id
+            producerConfig.put(ProducerConfig.CLIENT_ID_CONFIG, "dis-" + name + "-" + modeTag);
+        }
+        if (settings.getBufferMemory() != null)
+        {
+            producerConfig.put(ProducerConfig.BUFFER_MEMORY_CONFIG, settings.getBufferMemory()
+                    .toBytes());
+        }
+        if (settings.getBatchSize() != null)
+        {
+            producerConfig.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) settings.getBatchSize()
+                    .toBytes());
+        }
+        if (settings.getLinger() != null)
+        {
+            producerConfig.put(ProducerConfig.LINGER_MS_CONFIG, String.valueOf(settings.getLinger()
+                    .toMillis()));
+        }
+        Tags tags = Tags.of("producer", name, "mode", modeTag);
+        if (mode.isTransactional())
+        {
+            Map<String, Object> transactionalConfig = new HashMap<>(producerFactory.getConfigurationProperties());
+            transactionalConfig.putAll(producerConfig);
+            // initTransactions and commitTransaction wait max.block.ms, a commit of a large request needs longer
+            long timeout = transactionSettings.getTimeout()
+                    .toMillis();
+            transactionalConfig.put(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, (int) timeout);
+            transactionalConfig.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, timeout);
+            DefaultKafkaProducerFactory<String, byte[]> transactionalFactory = new DefaultKafkaProducerFactory<>(
+                    transactionalConfig);
+            transactionalFactory.setTransactionIdPrefix(transactionSettings.getIdPrefix() + name + "-");
+            this.kafkaTemplate = new KafkaTemplate<>(transactionalFactory);
+            // the gateway reads the buffer metrics inside each transaction; each transaction waits for its sends
+            this.producerBuffer = null;
+            this.maxInFlight = transactionSettings.getProducers();
+        }
+        else
+        {
+            this.kafkaTemplate = new KafkaTemplate<>(producerFactory, producerConfig);
+            this.producerBuffer = new ProducerBuffer(kafkaTemplate);
+            this.maxInFlight = settings.getMaxInFlight() != null ? settings.getMaxInFlight() : defaultMaxInFlight;
+            Gauge.builder("dis.kafka.producer.buffer.available", producerBuffer, ProducerBuffer::availableBytes)
+                    .description("Free bytes of the ledger producer buffer")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("dis.kafka.producer.buffer.total", producerBuffer, ProducerBuffer::totalBytes)
+                    .description("Configured size (buffer.memory) of the ledger producer buffer")
+                    .baseUnit(BaseUnits.BYTES)
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+
+        Gauge.builder("dis.asset.delivery.in.flight", this, PooledProducer::inFlight)
+                .description("Assets, or transactions of a transactional producer, that wait for the broker")
+                .tags(tags)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("dis.asset.delivery.rejected")
+                .description("Assets rejected because the ledger producer had no capacity left")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    KafkaTemplate<String, byte[]> getKafkaTemplate()
+    {
+        return kafkaTemplate;
+    }
+
+    boolean hasAvailableBuffer(long bytes)
+    {
+        return producerBuffer == null || producerBuffer.hasAvailable(bytes);
+    }
+
+    /**
+     * Takes one of the sends allowed to wait for the broker; for a transactional producer one of its pooled
+     * transactional producers.
+     */
+    boolean tryAcquire()
+    {
+        return inFlight.tryAcquire();
+    }
+
+    void release()
+    {
+        inFlight.release();
+    }
+
+    void rejected()
+    {
+        rejected.increment();
+    }
+
+    void destroy() throws Exception
+    {
+        if (kafkaTemplate.getProducerFactory() instanceof DisposableBean)
+        {
+            ((DisposableBean) kafkaTemplate.getProducerFactory()).destroy();
+        }
+    }
+
+    private double inFlight()
+    {
+        return maxInFlight - inFlight.availablePermits();
+    }
+}
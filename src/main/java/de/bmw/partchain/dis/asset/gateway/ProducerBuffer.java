@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the buffer metrics of the producer behind a template. The metrics are looked up by {@link #hasAvailable(long)}
+ * right before a send, which creates the producer if it does not exist yet, as the send would; the gauges only read
+ * the metrics looked up last, so publishing them does not create a producer. They are looked up again once a second,
+ * as the factory replaces a producer that failed, and the metrics of the closed one would not change any more.
+ */
+class ProducerBuffer
+{
+    private static final String PRODUCER_METRICS = "producer-metrics";
+    private static final long LOOKUP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final KafkaTemplate<?, ?> kafkaTemplate;
+    private volatile Metric availableBytes;
+    private volatile Metric totalBytes;
+    private volatile long lookedUpAt;
+
+    ProducerBuffer(KafkaTemplate<?, ?> kafkaTemplate)
+    {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Whether the producer buffer has at least {@code bytes} left; an unknown buffer counts as available.
+     */
+    boolean hasAvailable(long bytes)
+    {
+        long now = System.nanoTime();
+        if (availableBytes == null || now - lookedUpAt >= LOOKUP_INTERVAL_NANOS)
+        {
+            lookedUpAt = now;
+            lookUpMetrics();
+        }
+        double available = availableBytes();
+        return Double.isNaN(available) || available >= bytes;
+    }
+
+    /**
+     * Whether the buffer of the producer with these metrics has at least {@code bytes} left; for a transactional
+     * producer, whose metrics can only be read inside its transaction.
+     */
+    static boolean hasAvailable(Map<MetricName, ? extends Metric> metrics, long bytes)
+    {
+        double available = value(metric(metrics, "buffer-available-bytes"));
+        return Double.isNaN(available) || available >= bytes;
+    }
+
+    /**
+     * @return the free bytes of the producer buffer, NaN before the producer was used
+     */
+    double availableBytes()
+    {
+        return value(availableBytes);
+    }
+
+    /**
+     * @return the configured size of the producer buffer, NaN before the producer was used
+     */
+    double totalBytes()
+    {
+        return value(totalBytes);
+    }
+
+    private void lookUpMetrics()
+    {
+        Map<MetricName, ? extends Metric> metrics = kafkaTemplate.metrics();
+        availableBytes = metric(metrics, "buffer-available-bytes");
+        totalBytes = metric(metrics, "buffer-total-bytes");
+    }
+
+    private static Metric metric(Map<MetricName, ? extends Metric> metrics, String name)
+    {
+        for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet())
+        {
+            if (PRODUCER_METRICS.equals(metric.getKey()
+                    .group()) && name.equals(metric.getKey()
+                    .name()))
+            {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static double value(Metric metric)
+    {
+        if (metric == null)
+        {
+            return Double.NaN;
+        }
+        Object value = metric.metricValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
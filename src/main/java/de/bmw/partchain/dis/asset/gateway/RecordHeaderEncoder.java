@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.wire.ZstdDictionary;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the Kafka headers that carry the routing metadata of a record, so consumers can filter and route without
+ * reading the body. Each header is named like the body field it repeats and holds its JSON value as UTF-8 text, dates
+ * as epoch milliseconds; fields without a value get no header. The headers shared by the records of a request are
+ * encoded once and reused until a record of another request comes along, so an encoder is meant for one batch and is
+ * not thread safe.
+ */
+final class RecordHeaderEncoder
+{
+    static final String MSP_ID = "mspId";
+    static final String REQUEST_PROCESS_ID = "requestProcessId";
+    static final String REQUEST_DATE = "requestDate";
+    static final String QUALITY_STATUS = "qualityStatus";
+    static final String SOURCE_SERVICE = "sourceService";
+    static final String ZSTD_DICTIONARY_ID = "zstdDictionaryId";
+
+    private static final Map<AssetQualityStatus, Header> QUALITY_STATUS_HEADERS = new EnumMap<>(
+            AssetQualityStatus.class);
+
+    static
+    {
+        for (AssetQualityStatus qualityStatus : AssetQualityStatus.values())
+        {
+            QUALITY_STATUS_HEADERS.put(qualityStatus, header(QUALITY_STATUS, qualityStatus.name()));
+        }
+    }
+
+    private String mspId;
+    private String requestProcessId;
+    private Date requestDate;
+    private String sourceService;
+    private List<Header> requestHeaders;
+
+    List<Header> headers(Asset asset)
+    {
+        List<Header> headers = new ArrayList<>(requestHeaders(asset.getMspId(), asset.getRequestProcessId(),
+                asset.getRequestDate(), null));
+        if (asset.getQualityStatus() != null)
+        {
+            headers.add(QUALITY_STATUS_HEADERS.get(asset.getQualityStatus()));
+        }
+        return headers;
+    }
+
+    List<Header> headers(AssetIngestReport assetIngestReport)
+    {
+        return requestHeaders(assetIngestReport.getMspId(), assetIngestReport.getRequestProcessId(),
+                assetIngestReport.getRequestDate(), assetIngestReport.getSourceService());
+    }
+
+    List<Header> headers(AssetIngestSummary assetIngestSummary)
+    {
+        return requestHeaders(assetIngestSummary.getMspId(), assetIngestSummary.getRequestProcessId(),
+                assetIngestSummary.getRequestDate(), assetIngestSummary.getSourceService());
+    }
+
+    private List<Header> requestHeaders(String mspId, String requestProcessId, Date requestDate,
+                                        String sourceService)
+    {
+        if (requestHeaders == null || !Objects.equals(this.mspId, mspId) ||
+                !Objects.equals(this.requestProcessId, requestProcessId) ||
+                !Objects.equals(this.requestDate, requestDate) || !Objects.equals(this.sourceService, sourceService))
+        {
+            this.mspId = mspId;
+            this.requestProcessId = requestProcessId;
+            this.requestDate = requestDate;
+            this.sourceService = sourceService;
+
+            List<Header> headers = new ArrayList<>(4);
+            addHeader(headers, MSP_ID, mspId);
+            addHeader(headers, REQUEST_PROCESS_ID, requestProcessId);
+            addHeader(headers, REQUEST_DATE, requestDate == null ? null : String.valueOf(requestDate.getTime()));
+            addHeader(headers, SOURCE_SERVICE, sourceService);
+            requestHeaders = headers;
+        }
+        return requestHeaders;
+    }
+
+    /**
+     * The header of records compressed with the dictionary, or null without one.
+     */
+    static Header dictionaryHeader(ZstdDictionary dictionary)
+    {
+        return dictionary == null ? null : header(ZSTD_DICTIONARY_ID, String.valueOf(dictionary.getId()));
+    }
+
+    private static void addHeader(List<Header> headers, String name, String value)
+    {
+        if (value != null)
+        {
+            headers.add(header(name, value));
+        }
+    }
+
+    private static Header header(String name, String value)
+    {
+        return new RecordHeader(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+}
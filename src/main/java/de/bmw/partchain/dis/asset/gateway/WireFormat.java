@@ -0,0 +1,34 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+/**
+ * Encoding of the asset records published to the ledger topic.
+ */
+public enum WireFormat
+{
+    /**
+     * UTF-8 JSON, as returned by {@code AssetJsonCodec#writeAssetBytes}.
+     */
+    JSON,
+    /**
+     * Avro binary with a schema id prefix, as written by {@code AssetBinaryEncoder}.
+     */
+    BINARY
+}
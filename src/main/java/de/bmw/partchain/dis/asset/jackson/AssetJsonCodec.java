@@ -0,0 +1,244 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.jackson;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Owns the readers and writers used on the ingest path. They are built once from a plain {@link ObjectMapper}
+ * rather than the Spring managed one, so the JSON published to Kafka keeps its current shape (e.g. dates as epoch
+ * milliseconds). Requests may also be Smile or CBOR encoded; their elements are read into the same trees as JSON, so
+ * they end up in the same deserializer.
+ */
+@Slf4j
+@Component
+public class AssetJsonCodec
+{
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private final ObjectMapper mapper;
+    private final JsonFactory smileFactory;
+    private final JsonFactory cborFactory;
+    private final ObjectReader assetRequestReader;
+    private final ObjectReader assetReader;
+    private final ObjectWriter treeWriter;
+    private final ObjectWriter assetWriter;
+    private final ObjectWriter assetIngestReportWriter;
+    private final ObjectWriter assetIngestSummaryWriter;
+    private final ObjectWriter assetBodyWriter;
+    private final ObjectWriter assetIngestReportBodyWriter;
+
+    public AssetJsonCodec(@Value("${asset.codec.afterburner:false}") boolean afterburner)
+    {
+        mapper = new ObjectMapper();
+        if (afterburner)
+        {
+            mapper.registerModule(new AfterburnerModule());
+        }
+        smileFactory = new ObjectMapper(new SmileFactory()).getFactory();
+        cborFactory = new ObjectMapper(new CBORFactory()).getFactory();
+        assetRequestReader = mapper.readerFor(AssetRequestDto.class);
+        assetReader = mapper.readerFor(Asset.class);
+        treeWriter = mapper.writerFor(JsonNode.class);
+        assetWriter = mapper.writerFor(Asset.class);
+        assetIngestReportWriter = mapper.writerFor(AssetIngestReport.class);
+        assetIngestSummaryWriter = mapper.writerFor(AssetIngestSummary.class);
+        ObjectMapper bodyMapper = mapper.copy()
+                .addMixIn(Asset.class, AssetBodyMixin.class)
+                .addMixIn(AssetIngestReport.class, AssetIngestReportBodyMixin.class);
+        assetBodyWriter = bodyMapper.writerFor(Asset.class);
+        assetIngestReportBodyWriter = bodyMapper.writerFor(AssetIngestReport.class);
+        log.info(String.format("[INIT LOAD] AssetJsonCodec initialized, afterburner: %s.", afterburner));
+    }
+
+    public JsonParser createParser(InputStream inputStream) throws IOException
+    {
+        return mapper.getFactory()
+                .createParser(inputStream);
+    }
+
+    /**
+     * Creates a parser for a request body of the given content type, JSON unless it is Smile or CBOR.
+     */
+    public JsonParser createParser(MediaType contentType, InputStream inputStream) throws IOException
+    {
+        if (APPLICATION_SMILE.isCompatibleWith(contentType))
+        {
+            return smileFactory.createParser(inputStream);
+        }
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType))
+        {
+            return cborFactory.createParser(inputStream);
+        }
+        return createParser(inputStream);
+    }
+
+    public JsonNode readTree(String content) throws JsonProcessingException
+    {
+        return mapper.readTree(content);
+    }
+
+    public AssetRequestDto readAssetRequest(JsonNode node) throws JsonProcessingException
+    {
+        try
+        {
+            return assetRequestReader.readValue(node);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an asset written by {@link #writeAssetBytes(Asset)}.
+     */
+    public Asset readAssetBytes(byte[] content) throws IOException
+    {
+        return assetReader.readValue(content);
+    }
+
+    @SneakyThrows
+    public String writeTree(JsonNode node)
+    {
+        return treeWriter.writeValueAsString(node);
+    }
+
+    @SneakyThrows
+    public String writeAsset(Asset asset)
+    {
+        return assetWriter.writeValueAsString(asset);
+    }
+
+    @SneakyThrows
+    public String writeAssetIngestReport(AssetIngestReport assetIngestReport)
+    {
+        return assetIngestReportWriter.writeValueAsString(assetIngestReport);
+    }
+
+    /**
+     * Writes the asset as UTF-8 JSON without going through a String; the bytes are the same as the UTF-8 encoding of
+     * {@link #writeAsset(Asset)}.
+     */
+    @SneakyThrows
+    public byte[] writeAssetBytes(Asset asset)
+    {
+        return writeUtf8(assetWriter, asset);
+    }
+
+    /**
+     * Writes the report as UTF-8 JSON without going through a String; the bytes are the same as the UTF-8 encoding of
+     * {@link #writeAssetIngestReport(AssetIngestReport)}.
+     */
+    @SneakyThrows
+    public byte[] writeAssetIngestReportBytes(AssetIngestReport assetIngestReport)
+    {
+        return writeUtf8(assetIngestReportWriter, assetIngestReport);
+    }
+
+    @SneakyThrows
+    public byte[] writeAssetIngestSummaryBytes(AssetIngestSummary assetIngestSummary)
+    {
+        return writeUtf8(assetIngestSummaryWriter, assetIngestSummary);
+    }
+
+    /**
+     * Like {@link #writeAssetBytes(Asset)}, but leaves out the fields that are sent as Kafka record headers.
+     */
+    @SneakyThrows
+    public byte[] writeAssetBodyBytes(Asset asset)
+    {
+        return writeUtf8(assetBodyWriter, asset);
+    }
+
+    /**
+     * Like {@link #writeAssetIngestReportBytes(AssetIngestReport)}, but leaves out the fields that are sent as Kafka
+     * record headers.
+     */
+    @SneakyThrows
+    public byte[] writeAssetIngestReportBodyBytes(AssetIngestReport assetIngestReport)
+    {
+        return writeUtf8(assetIngestReportBodyWriter, assetIngestReport);
+    }
+
+    private static byte[] writeUtf8(ObjectWriter writer, Object value) throws JsonProcessingException
+    {
+        byte[] json = writer.writeValueAsBytes(value);
+        // the byte generator writes surrogates as JSON unicode escapes, the text one writes them as they are, so
+        // values outside the BMP take the String route to stay byte identical
+        return hasEscapedSurrogate(json) ? writer.writeValueAsString(value)
+                .getBytes(StandardCharsets.UTF_8) : json;
+    }
+
+    static boolean hasEscapedSurrogate(byte[] json)
+    {
+        for (int i = 0; i < json.length; i++)
+        {
+            if (json[i] == '\\')
+            {
+                if (i + 3 < json.length && json[i + 1] == 'u' && json[i + 2] == 'D' && json[i + 3] >= '8' &&
+                        (json[i + 3] <= '9' || json[i + 3] >= 'A' && json[i + 3] <= 'F'))
+                {
+                    return true;
+                }
+                // skips the escaped character, so an escaped backslash is never read as the start of an escape
+                i++;
+            }
+        }
+        return false;
+    }
+
+    @JsonIgnoreProperties({"mspId", "requestProcessId", "requestDate", "qualityStatus"})
+    private abstract static class AssetBodyMixin
+    {
+    }
+
+    @JsonIgnoreProperties({"mspId", "requestProcessId", "requestDate", "sourceService"})
+    private abstract static class AssetIngestReportBodyMixin
+    {
+    }
+}
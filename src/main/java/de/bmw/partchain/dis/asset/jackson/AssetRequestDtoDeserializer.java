@@ -15,26 +15,28 @@
  *
  */
 
+
 package de.bmw.partchain.dis.asset.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
 import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
 import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
+/**
+ * Reads an {@link AssetRequestDto} in a single pass over the parser tokens. Unknown properties are collected as
+ * warnings instead of failing the asset, and every value is read the way {@link JsonNode#asText()} would render it,
+ * so the result does not depend on the data format behind the parser.
+ */
 @Slf4j
 public class AssetRequestDtoDeserializer extends StdDeserializer<AssetRequestDto>
 {
@@ -54,17 +56,9 @@ public class AssetRequestDtoDeserializer extends StdDeserializer<AssetRequestDto
     private static final String COMPONENTS_SERIAL_NUMBERS = "componentsSerialNumbers";
     private static final String CUSTOM_FIELDS = "customFields";
     private static final String QUALITY_DOCUMENTS = "qualityDocuments";
-    private final List<String> allAssetProperties =
-            Arrays.asList(MANUFACTURER, PART_NAME_MANUFACTURER,
-                    PART_NUMBER_CUSTOMER, PART_NUMBER_MANUFACTURER, PRODUCTION_COUNTRY_CODE_MANUFACTURER,
-                    PRODUCTION_DATE_GMT, MANUFACTURER_PLANT, MANUFACTURER_LINE, SERIAL_NUMBER_TYPE, QUALITY_STATUS,
-                    SERIAL_NUMBER_CUSTOMER, SERIAL_NUMBER_MANUFACTURER, STATUS, COMPONENTS_SERIAL_NUMBERS,
-                    CUSTOM_FIELDS, QUALITY_DOCUMENTS);
-    private final List<String> stringAssetProperties =
-            Arrays.asList(MANUFACTURER, PART_NAME_MANUFACTURER,
-                    PART_NUMBER_CUSTOMER, PART_NUMBER_MANUFACTURER, PRODUCTION_COUNTRY_CODE_MANUFACTURER,
-                    PRODUCTION_DATE_GMT, MANUFACTURER_PLANT, MANUFACTURER_LINE,
-                    SERIAL_NUMBER_CUSTOMER, SERIAL_NUMBER_MANUFACTURER, STATUS);
+    private static final String UNKNOWN_PROPERTY_WARNING = "The property '%s' is not defined on the asset json schema";
+    private static final SerialNumberType[] SERIAL_NUMBER_TYPES = SerialNumberType.values();
+    private static final AssetQualityStatus[] QUALITY_STATUSES = AssetQualityStatus.values();
 
     public AssetRequestDtoDeserializer()
     {
@@ -80,135 +74,254 @@ public class AssetRequestDtoDeserializer extends StdDeserializer<AssetRequestDto
     public AssetRequestDto deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws
             IOException
     {
-        JsonNode node = jsonParser
-                .getCodec()
-                .readTree(jsonParser);
-
-        Iterable<String> iterable = node::fieldNames;
-        List<String> jsonProperties = StreamSupport
-                .stream(iterable.spliterator(), false)
-                .collect(Collectors.toList());
-
-        Set<String> invalidPropertiesException = checkNonExistentPropertiesInJsonDataModel(jsonProperties);
-
         AssetRequestDto asset = new AssetRequestDto();
-        stringAssetProperties
-                .forEach(property ->
-                        loadStringProperties(node, asset, property));
-        asset.setSerialNumberType(getSerialNumberType(node));
-        asset.setQualityStatus(getQualityStatus(node));
-        asset.setComponentsSerialNumbers(getComponentsSerialNumbers(node));
-        asset.setQualityDocuments(loadMapField(node, QUALITY_DOCUMENTS));
-        asset.setCustomFields(loadMapField(node, CUSTOM_FIELDS));
+        asset.setSerialNumberType(SerialNumberType.SINGLE);
+        Set<String> warnings = new HashSet<>();
 
+        JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT)
+        {
+            token = jsonParser.nextToken();
+        }
+        else if (token != JsonToken.FIELD_NAME)
+        {
+            // anything but an object carries no asset properties
+            jsonParser.skipChildren();
+        }
+
+        for (; token == JsonToken.FIELD_NAME; token = jsonParser.nextToken())
+        {
+            String fieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            readProperty(jsonParser, deserializationContext, asset, fieldName, warnings);
+        }
 
-        asset.setWarnings(invalidPropertiesException);
+        asset.setWarnings(warnings);
         return asset;
     }
 
-    private Set<String> checkNonExistentPropertiesInJsonDataModel(List<String> propertiesInJson)
+    private void readProperty(JsonParser jsonParser, DeserializationContext deserializationContext,
+                              AssetRequestDto asset, String fieldName, Set<String> warnings) throws IOException
     {
-        return propertiesInJson
-                .stream()
-                .filter(element -> !allAssetProperties.contains(element))
-                .map(element -> String.format("The property '%s' is not defined on the asset json schema", element))
-                .collect(Collectors.toSet());
+        switch (fieldName)
+        {
+            case MANUFACTURER:
+                asset.setManufacturer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case PART_NAME_MANUFACTURER:
+                asset.setPartNameManufacturer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case PART_NUMBER_CUSTOMER:
+                asset.setPartNumberCustomer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case PART_NUMBER_MANUFACTURER:
+                asset.setPartNumberManufacturer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case PRODUCTION_COUNTRY_CODE_MANUFACTURER:
+                asset.setProductionCountryCodeManufacturer(readString(jsonParser, deserializationContext,
+                        fieldName));
+                break;
+            case PRODUCTION_DATE_GMT:
+                asset.setProductionDateGmt(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case MANUFACTURER_PLANT:
+                asset.setManufacturerPlant(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case MANUFACTURER_LINE:
+                asset.setManufacturerLine(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case SERIAL_NUMBER_CUSTOMER:
+                asset.setSerialNumberCustomer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case SERIAL_NUMBER_MANUFACTURER:
+                asset.setSerialNumberManufacturer(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case STATUS:
+                asset.setStatus(readString(jsonParser, deserializationContext, fieldName));
+                break;
+            case SERIAL_NUMBER_TYPE:
+                asset.setSerialNumberType(getSerialNumberType(jsonParser));
+                break;
+            case QUALITY_STATUS:
+                asset.setQualityStatus(getQualityStatus(jsonParser));
+                break;
+            case COMPONENTS_SERIAL_NUMBERS:
+                asset.setComponentsSerialNumbers(getComponentsSerialNumbers(jsonParser));
+                break;
+            case CUSTOM_FIELDS:
+                asset.setCustomFields(loadMapField(jsonParser, deserializationContext, fieldName));
+                break;
+            case QUALITY_DOCUMENTS:
+                asset.setQualityDocuments(loadMapField(jsonParser, deserializationContext, fieldName));
+                break;
+            default:
+                warnings.add(String.format(UNKNOWN_PROPERTY_WARNING, fieldName));
+                jsonParser.skipChildren();
+        }
     }
 
-    @SneakyThrows
-    private void loadStringProperties(JsonNode node, AssetRequestDto asset, String fieldName)
+    private String readString(JsonParser jsonParser, DeserializationContext deserializationContext,
+                              String fieldName) throws IOException
     {
-        if (node.has(fieldName) && !node.get(fieldName)
-                .isNull())
+        String fieldValue = asText(jsonParser, deserializationContext);
+        log.debug("set value for: {} with value: {}", fieldName, fieldValue);
+        return fieldValue;
+    }
+
+    private SerialNumberType getSerialNumberType(JsonParser jsonParser) throws IOException
+    {
+        SerialNumberType result = SerialNumberType.SINGLE;
+        if (!jsonParser.hasToken(JsonToken.VALUE_NULL))
         {
-            String fieldValue = node.get(fieldName)
-                    .asText();
-            log.debug(String.format("set value for: %s with value: %s", fieldName, fieldValue));
-            Class<?> clazz = asset.getClass();
-            Field field = clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            field.set(asset, fieldValue);
+            result = findConstant(SERIAL_NUMBER_TYPES, textValue(jsonParser));
         }
+        log.debug("set value for: {} with value: {}", SERIAL_NUMBER_TYPE, result);
+        return result;
     }
 
-    private SerialNumberType getSerialNumberType(JsonNode node)
+    private AssetQualityStatus getQualityStatus(JsonParser jsonParser) throws IOException
     {
-        SerialNumberType result = SerialNumberType.SINGLE;
-        if (node.has(SERIAL_NUMBER_TYPE) && !node.get(SERIAL_NUMBER_TYPE)
-                .isNull())
+        AssetQualityStatus result = findConstant(QUALITY_STATUSES, textValue(jsonParser));
+        log.debug("set value for: {} with value: {}", QUALITY_STATUS, result);
+        return result;
+    }
+
+    private Set<String> getComponentsSerialNumbers(JsonParser jsonParser) throws IOException
+    {
+        JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL)
         {
-            try
-            {
-                String fieldValue = node.get(SERIAL_NUMBER_TYPE)
-                        .textValue()
-                        .toUpperCase();
-                result = SerialNumberType.valueOf(fieldValue);
-            }
-            catch (IllegalArgumentException ignored)
+            return null;
+        }
+
+        Set<String> result = new HashSet<>();
+        if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT)
+        {
+            JsonToken closingToken = token == JsonToken.START_ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+            for (token = jsonParser.nextToken(); token != closingToken && token != null;
+                 token = jsonParser.nextToken())
             {
-                result = null;
+                if (token == JsonToken.FIELD_NAME)
+                {
+                    jsonParser.nextToken();
+                }
+                result.add(textValue(jsonParser));
             }
         }
-        log.debug(String.format("set value for: %s with value: %s", SERIAL_NUMBER_TYPE, result));
+
+        log.debug("set {} with {} distinct serial numbers", COMPONENTS_SERIAL_NUMBERS, result.size());
         return result;
     }
 
-    private AssetQualityStatus getQualityStatus(JsonNode node)
+    private Map<String, String> loadMapField(JsonParser jsonParser, DeserializationContext deserializationContext,
+                                             String fieldName) throws IOException
     {
-        AssetQualityStatus result = null;
-        if (node.has(QUALITY_STATUS) && !node.get(QUALITY_STATUS)
-                .isNull())
+        JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL)
+        {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT)
         {
-            try
+            return castMap(deserializationContext.handleUnexpectedToken(Map.class, jsonParser));
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (token = jsonParser.nextToken(); token == JsonToken.FIELD_NAME; token = jsonParser.nextToken())
+        {
+            String key = jsonParser.getCurrentName();
+            token = jsonParser.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)
             {
-                String fieldValue = node.get(QUALITY_STATUS)
-                        .textValue()
-                        .toUpperCase();
-                result = AssetQualityStatus.valueOf(fieldValue);
+                result.put(key, (String) deserializationContext.handleUnexpectedToken(String.class, jsonParser));
             }
-            catch (IllegalArgumentException ignored)
+            else
             {
+                result.put(key, asText(jsonParser, deserializationContext));
             }
         }
-        log.debug(String.format("set value for: %s with value: %s", QUALITY_STATUS, result));
+
+        log.debug("set {} with {} elements", fieldName, result.size());
         return result;
     }
 
-    private Set<String> getComponentsSerialNumbers(JsonNode node)
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> castMap(Object value)
     {
-        Set<String> result = null;
-        if (node.has(COMPONENTS_SERIAL_NUMBERS) && !node.get(COMPONENTS_SERIAL_NUMBERS)
-                .isNull())
+        return (Map<String, String>) value;
+    }
+
+    /**
+     * Returns the current value the way {@link JsonNode#asText()} renders it, skipping over containers.
+     */
+    private static String asText(JsonParser jsonParser, DeserializationContext deserializationContext) throws
+            IOException
+    {
+        switch (jsonParser.getCurrentToken())
         {
-            result = new HashSet<>();
-            for (JsonNode child : node.get(COMPONENTS_SERIAL_NUMBERS))
-            {
-                result.add(child.textValue());
-            }
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return jsonParser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE.toString();
+            case VALUE_FALSE:
+                return Boolean.FALSE.toString();
+            case VALUE_NUMBER_INT:
+                return String.valueOf(jsonParser.getNumberValue());
+            case VALUE_NUMBER_FLOAT:
+                return floatText(jsonParser);
+            case START_OBJECT:
+            case START_ARRAY:
+                jsonParser.skipChildren();
+                return "";
+            default:
+                return deserializationContext.readValue(jsonParser, JsonNode.class)
+                        .asText();
+        }
+    }
 
-            log.debug(String.format("set %s with %s distinct serial numbers", COMPONENTS_SERIAL_NUMBERS,
-                    result.size()));
+    private static String floatText(JsonParser jsonParser) throws IOException
+    {
+        switch (jsonParser.getNumberType())
+        {
+            case BIG_DECIMAL:
+                BigDecimal value = jsonParser.getDecimalValue();
+                return value.signum() == 0 ? BigDecimal.ZERO.toString() : value.stripTrailingZeros()
+                        .toString();
+            case FLOAT:
+                return Float.toString(jsonParser.getFloatValue());
+            default:
+                return Double.toString(jsonParser.getDoubleValue());
         }
-        return result;
     }
 
-    @SneakyThrows
-    private Map<String, String> loadMapField(JsonNode node, String fieldName)
+    /**
+     * Returns the current value if it is a string, like {@link JsonNode#textValue()}, skipping over containers.
+     */
+    private static String textValue(JsonParser jsonParser) throws IOException
     {
-        Map<String, String> result = null;
-        if (node.has(fieldName) && !node.get(fieldName)
-                .isNull())
+        if (jsonParser.hasToken(JsonToken.VALUE_STRING))
         {
-            JsonNode child = node.get(fieldName);
-            ObjectMapper mapper = new ObjectMapper();
-            result = mapper.convertValue(child, new TypeReference<Map<String, String>>()
-            {
-            });
-            log.debug(String.format("set %s with %s elements", fieldName, result.size()));
+            return jsonParser.getText();
         }
+        jsonParser.skipChildren();
+        return null;
+    }
 
-        return result;
+    private static <E extends Enum<E>> E findConstant(E[] constants, String name)
+    {
+        if (name != null)
+        {
+            for (E constant : constants)
+            {
+                if (constant.name()
+                        .equalsIgnoreCase(name))
+                {
+                    return constant;
+                }
+            }
+        }
+        return null;
     }
 }
-
-
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+
+/**
+ * Walks the elements of an asset request one at a time, so only the element being processed is held in memory.
+ * The elements of a root array are returned in order; for a root object its values are returned, and any other root
+ * value has no elements, which is how {@link JsonNode#elements()} treats the same documents.
+ */
+public class AssetRequestStreamReader
+{
+    private final JsonParser parser;
+    private final JsonToken closingToken;
+    private boolean finished;
+
+    public AssetRequestStreamReader(JsonParser parser) throws IOException
+    {
+        this.parser = parser;
+        JsonToken rootToken = parser.nextToken();
+        if (rootToken == null)
+        {
+            throw MismatchedInputException.from(parser, JsonNode.class, "No content to map due to end-of-input");
+        }
+
+        if (rootToken == JsonToken.START_ARRAY)
+        {
+            closingToken = JsonToken.END_ARRAY;
+        }
+        else if (rootToken == JsonToken.START_OBJECT)
+        {
+            closingToken = JsonToken.END_OBJECT;
+        }
+        else
+        {
+            closingToken = null;
+            finished = true;
+        }
+    }
+
+    /**
+     * Moves the parser to the first token of the next element.
+     *
+     * @return false once all elements of the request were read
+     */
+    public boolean nextElement() throws IOException
+    {
+        if (finished)
+        {
+            return false;
+        }
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.FIELD_NAME)
+        {
+            token = parser.nextToken();
+        }
+        if (token == null || token == closingToken)
+        {
+            finished = true;
+        }
+        return !finished;
+    }
+
+    /**
+     * Reads the element the parser was moved to by {@link #nextElement()}.
+     */
+    public JsonNode readElement() throws IOException
+    {
+        return parser.readValueAsTree();
+    }
+}
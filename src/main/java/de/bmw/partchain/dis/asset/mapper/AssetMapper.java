@@ -27,8 +27,6 @@ import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
-
 @Mapper(componentModel = "spring")
 public abstract class AssetMapper
 {
@@ -43,7 +41,6 @@ public abstract class AssetMapper
     @AfterMapping
     public void setMspId(@MappingTarget Asset asset)
     {
-        asset.setRequestDate(new Date());
         asset.setMspId(authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID));
     }
 }
\ No newline at end of file
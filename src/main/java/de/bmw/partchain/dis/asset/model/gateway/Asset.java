@@ -19,6 +19,7 @@ package de.bmw.partchain.dis.asset.model.gateway;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
 import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
 import lombok.Data;
@@ -31,6 +32,8 @@ import java.util.Set;
 @Data
 public class Asset
 {
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerFor(Asset.class);
+
     @JsonProperty
     private String requestProcessId;
     @JsonProperty
@@ -74,6 +77,6 @@ public class Asset
     @Override
     public String toString()
     {
-        return new ObjectMapper().writeValueAsString(this);
+        return JSON_WRITER.writeValueAsString(this);
     }
 }
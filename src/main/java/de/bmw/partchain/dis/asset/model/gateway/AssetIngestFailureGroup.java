@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The assets of a request that failed for the same reason, or got the same warning, with a few of them as samples.
+ */
+@Data
+public class AssetIngestFailureGroup
+{
+    @JsonProperty
+    private AssetFailType failType;
+    @JsonProperty
+    private String reason;
+    @JsonProperty
+    private boolean warning;
+    @JsonProperty
+    private int count;
+    @JsonProperty
+    private List<Integer> sampleIndexes = new ArrayList<>();
+    @JsonProperty
+    private List<String> sampleAssets = new ArrayList<>();
+}
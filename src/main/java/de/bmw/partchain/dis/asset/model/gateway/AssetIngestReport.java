@@ -19,6 +19,7 @@ package de.bmw.partchain.dis.asset.model.gateway;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.Data;
 import lombok.SneakyThrows;
 
@@ -28,6 +29,8 @@ import java.util.List;
 @Data
 public class AssetIngestReport
 {
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerFor(AssetIngestReport.class);
+
     @JsonProperty
     private String requestProcessId;
     @JsonProperty
@@ -47,6 +50,6 @@ public class AssetIngestReport
     @Override
     public String toString()
     {
-        return new ObjectMapper().writeValueAsString(this);
+        return JSON_WRITER.writeValueAsString(this);
     }
 }
@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.Data;
+import lombok.SneakyThrows;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The failed assets of one request, grouped by reason.
+ */
+@Data
+public class AssetIngestSummary
+{
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerFor(AssetIngestSummary.class);
+
+    @JsonProperty
+    private String requestProcessId;
+    @JsonProperty
+    private Date requestDate;
+    @JsonProperty
+    private String mspId;
+    @JsonProperty
+    private int failedAssets;
+    @JsonProperty
+    private List<AssetIngestFailureGroup> failures;
+    @JsonProperty
+    private String sourceService;
+
+    @SneakyThrows
+    @Override
+    public String toString()
+    {
+        return JSON_WRITER.writeValueAsString(this);
+    }
+}
@@ -20,6 +20,7 @@ package de.bmw.partchain.dis.asset.model.response;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
+import java.time.Duration;
 import java.util.*;
 
 @Data
@@ -29,6 +30,10 @@ public class SentToLedgerResponseDto
     private Date requestDate;
     @JsonIgnore
     private String mspId;
+    @JsonIgnore
+    private boolean deliveryRejected;
+    @JsonIgnore
+    private Duration retryAfter;
     private List<Integer> processedAssets;
     private List<AssetFailedReportResponseDto> failedAssets;
 
@@ -61,7 +66,19 @@ public class SentToLedgerResponseDto
                                      AssetFailType failType,
                                      List<String> failReasons)
     {
-        failedAssets.add(new AssetFailedReportResponseDto(index, failType, failReasons, jsonRequestAsset));
+        addFailedAsset(index, jsonRequestAsset, failType, failReasons, Collections.emptySet());
+    }
+
+    /**
+     * Marks the request as rejected by the gateway, keeping the longest wait of its rejections for Retry-After.
+     */
+    public final void addDeliveryRejection(Duration retryAfter)
+    {
+        deliveryRejected = true;
+        if (this.retryAfter == null || retryAfter.compareTo(this.retryAfter) > 0)
+        {
+            this.retryAfter = retryAfter;
+        }
     }
 
     public final void addProcessedAssetIndex(int index)
@@ -0,0 +1,318 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.outbox;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.AssetKafkaGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.retry.DeadLetterStore;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.AssetOutboxProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Spools assets to disk instead of sending them to Kafka on the request thread, so requests do not wait for the
+ * broker: an asset counts as delivered once it is forced to disk. A single drainer thread reads the spool in order
+ * and forwards the assets with {@link AssetKafkaGateway}, retrying those that failed for a transient reason up to
+ * {@code asset.outbox.max-attempts} times, and then checkpoints its position. Assets that still failed go to the
+ * outbox dead-letter file, which is appended to the spool again by the {@code outboxdeadletters} actuator endpoint.
+ * Assets spooled but not checkpointed before a restart are sent again, so the ledger gets every asset at least once.
+ * Needs {@code ledger.gateway=kafka}. The assets of tenants in transactional mode are sent to Kafka directly, as the
+ * drainer would split their requests into other transactions.
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(name = "asset.outbox.enabled", havingValue = "true")
+public class AssetOutboxGateway implements AssetGateway, DisposableBean
+{
+    private final AssetKafkaGateway kafkaGateway;
+    private final AssetJsonCodec codec;
+    private final AssetDeliveryProperties deliveryProperties;
+    private final AssetOutboxProperties properties;
+    private final OutboxSpool spool;
+    private final DeadLetterStore deadLetters;
+    private final ExecutorService drainer;
+    private final Counter drained;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private final Counter quarantined;
+
+    public AssetOutboxGateway(AssetKafkaGateway kafkaGateway, AssetJsonCodec codec,
+                              AssetDeliveryProperties deliveryProperties, AssetOutboxProperties properties,
+                              MeterRegistry meterRegistry) throws IOException
+    {
+        this.kafkaGateway = kafkaGateway;
+        this.codec = codec;
+        this.deliveryProperties = deliveryProperties;
+        this.properties = properties;
+        this.spool = new OutboxSpool(Paths.get(properties.getDirectory()), (int) properties.getSegmentSize()
+                .toBytes(), properties.getFsyncInterval());
+        this.deadLetters = new DeadLetterStore(properties.getDeadLetterFile());
+        Gauge.builder("dis.asset.outbox.backlog", spool, OutboxSpool::backlogBytes)
+                .description("Bytes of spooled assets not yet accepted by Kafka")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        this.drained = Counter.builder("dis.asset.outbox.drained")
+                .description("Spooled assets accepted by Kafka")
+                .register(meterRegistry);
+        this.retried = Counter.builder("dis.asset.outbox.retried")
+                .description("Spooled assets sent to Kafka again after a failed send")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("dis.asset.outbox.dead.lettered")
+                .description("Spooled assets appended to the outbox dead-letter file")
+                .register(meterRegistry);
+        this.quarantined = Counter.builder("dis.asset.outbox.quarantined")
+                .description("Spooled records that cannot be read, kept in the unreadable file of the dead letters")
+                .register(meterRegistry);
+        Gauge.builder("dis.asset.outbox.deadletter.depth", deadLetters, DeadLetterStore::depth)
+                .description("Assets in the outbox dead-letter file")
+                .register(meterRegistry);
+        this.drainer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("asset-outbox-drain-"));
+        drainer.execute(this::drain);
+        log.info("[INIT LOAD] AssetOutboxGateway initialized.");
+    }
+
+    /**
+     * The results complete once the assets are forced to disk, which happens for all assets appended within the
+     * same fsync interval at once; those of tenants in transactional mode once their transaction is committed.
+     */
+    @Override
+    public List<CompletableFuture<Void>> sendToLedger(List<Asset> assets)
+    {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(assets.size());
+        List<Integer> transactional = new ArrayList<>();
+        for (int i = 0; i < assets.size(); i++)
+        {
+            Asset asset = assets.get(i);
+            if (deliveryProperties.modeFor(asset.getMspId())
+                    .isTransactional())
+            {
+                transactional.add(i);
+                deliveries.add(null);
+            }
+            else
+            {
+                deliveries.add(spool.append(codec.writeAssetBytes(asset)));
+            }
+        }
+
+        if (!transactional.isEmpty())
+        {
+            List<CompletableFuture<Void>> results = kafkaGateway.sendToLedger(transactional.stream()
+                    .map(assets::get)
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < transactional.size(); i++)
+            {
+                deliveries.set(transactional.get(i), results.get(i));
+            }
+        }
+        return deliveries;
+    }
+
+    /**
+     * Appends the assets of the dead-letter file to the spool again; those the spool does not take go back to the
+     * file.
+     *
+     * @return the number of assets appended
+     */
+    public int replayDeadLetters() throws IOException
+    {
+        return deadLetters.replay(records -> {
+            List<CompletableFuture<Void>> appends = new ArrayList<>(records.size());
+            for (byte[] record : records)
+            {
+                appends.add(spool.append(record));
+            }
+            for (int i = 0; i < records.size(); i++)
+            {
+                if (DeliveryFutures.failure(appends.get(i)) != null)
+                {
+                    deadLetters.append(records.get(i));
+                }
+            }
+        });
+    }
+
+    public long getDeadLetterDepth()
+    {
+        return deadLetters.depth();
+    }
+
+    /**
+     * Stops the drainer first, assets it read but did not checkpoint are sent again after the restart.
+     */
+    @Override
+    public void destroy() throws Exception
+    {
+        drainer.shutdownNow();
+        drainer.awaitTermination(10, TimeUnit.SECONDS);
+        spool.close();
+    }
+
+    private void drain()
+    {
+        OutboxSpool.Position position = spool.getCheckpoint();
+        while (!Thread.currentThread()
+                .isInterrupted())
+        {
+            try
+            {
+                OutboxSpool.Batch batch = spool.read(position, properties.getBatchSize());
+                if (batch.getRecords()
+                        .isEmpty())
+                {
+                    spool.commit(batch.getEnd());
+                    position = batch.getEnd();
+                    TimeUnit.NANOSECONDS.sleep(properties.getFsyncInterval()
+                            .toNanos());
+                    continue;
+                }
+                forward(decode(batch.getRecords()));
+                spool.commit(batch.getEnd());
+                position = batch.getEnd();
+                drained.increment(batch.getRecords()
+                        .size());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                        .interrupt();
+            }
+            catch (Exception e)
+            {
+                log.error("[DIS] Outbox drainer failed at " + position + ": " + DeliveryFutures.failureMessage(e));
+                sleep(properties.getMaxRetryBackoff()
+                        .toMillis());
+            }
+        }
+    }
+
+    /**
+     * Records that cannot be read are quarantined next to the dead-letter file before the drainer moves past them; if
+     * that fails, the batch is read again.
+     */
+    private List<Asset> decode(List<byte[]> records) throws IOException
+    {
+        List<Asset> assets = new ArrayList<>(records.size());
+        for (byte[] record : records)
+        {
+            try
+            {
+                assets.add(codec.readAssetBytes(record));
+            }
+            catch (IOException e)
+            {
+                // would never become sendable, and has passed its CRC check, so it was written that way
+                deadLetters.quarantine(record);
+                quarantined.increment();
+                log.error("[DIS] Spooled asset quarantined, it cannot be read: " + e.getMessage());
+            }
+        }
+        return assets;
+    }
+
+    /**
+     * Sends the assets, and those that failed for a transient reason again with a growing backoff, until Kafka
+     * accepted them or their attempts ran out. Assets that failed for good are dead-lettered, so the drainer can move
+     * on; if that fails as well, the batch is read and sent again.
+     */
+    private void forward(List<Asset> assets) throws InterruptedException, IOException
+    {
+        List<Asset> pending = assets;
+        long backoff = properties.getRetryBackoff()
+                .toMillis();
+        for (int attempt = 1; !pending.isEmpty(); attempt++)
+        {
+            List<CompletableFuture<Void>> results = kafkaGateway.sendToLedger(pending);
+            List<Asset> failed = new ArrayList<>();
+            Throwable failure = null;
+            for (int i = 0; i < pending.size(); i++)
+            {
+                Throwable assetFailure = DeliveryFutures.failure(results.get(i));
+                if (assetFailure == null)
+                {
+                    continue;
+                }
+                if (attempt >= properties.getMaxAttempts() || !DeliveryFutures.isTransient(assetFailure))
+                {
+                    deadLetter(pending.get(i), assetFailure);
+                }
+                else
+                {
+                    failed.add(pending.get(i));
+                    failure = assetFailure;
+                }
+            }
+            if (failure != null)
+            {
+                log.warn(String.format("[DIS] %d of %d spooled assets not accepted by Kafka, retrying in %d ms: %s",
+                        failed.size(), pending.size(), backoff, DeliveryFutures.failureMessage(failure)));
+                retried.increment(failed.size());
+                TimeUnit.MILLISECONDS.sleep(backoff);
+                backoff = Math.min(backoff * 2, properties.getMaxRetryBackoff()
+                        .toMillis());
+            }
+            pending = failed;
+        }
+    }
+
+    private void deadLetter(Asset asset, Throwable failure) throws IOException
+    {
+        deadLetters.append(codec.writeAssetBytes(asset));
+        deadLettered.increment();
+        log.error(String.format("[DIS][%s] Spooled asset serialNumber '%s' of request %s dead-lettered: %s",
+                asset.getMspId(), asset.getSerialNumberManufacturer(), asset.getRequestProcessId(),
+                DeliveryFutures.failureMessage(failure)));
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+}
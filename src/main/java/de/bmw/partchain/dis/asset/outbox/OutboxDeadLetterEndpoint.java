@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.outbox;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/outboxdeadletters} shows how many spooled assets Kafka did not accept, {@code POST} appends
+ * them to the outbox again.
+ */
+@Component
+@Endpoint(id = "outboxdeadletters")
+@ConditionalOnProperty(name = "asset.outbox.enabled", havingValue = "true")
+public class OutboxDeadLetterEndpoint
+{
+    private final AssetOutboxGateway outboxGateway;
+
+    public OutboxDeadLetterEndpoint(AssetOutboxGateway outboxGateway)
+    {
+        this.outboxGateway = outboxGateway;
+    }
+
+    @ReadOperation
+    public Map<String, Long> depth()
+    {
+        return Collections.singletonMap("depth", outboxGateway.getDeadLetterDepth());
+    }
+
+    @WriteOperation
+    public Map<String, Integer> replay() throws IOException
+    {
+        return Collections.singletonMap("replayed", outboxGateway.replayDeadLetters());
+    }
+}
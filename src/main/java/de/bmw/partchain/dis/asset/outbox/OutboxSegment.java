@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.outbox;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * One memory mapped file of the outbox spool. Records are written one after the other as length, CRC32 and payload;
+ * a zero length ends the written records, and a negative one marks a segment that was closed before it was full.
+ */
+final class OutboxSegment
+{
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final int CLOSED = -1;
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d{20})\\.segment");
+
+    private final long id;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+
+    private OutboxSegment(long id, Path file, MappedByteBuffer buffer)
+    {
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static OutboxSegment create(Path directory, long id, int size) throws IOException
+    {
+        return map(id, directory.resolve(String.format("%020d.segment", id)), size);
+    }
+
+    static OutboxSegment open(Path file) throws IOException
+    {
+        return map(id(file), file, (int) Files.size(file));
+    }
+
+    /**
+     * @return the id of the segment in the file, or -1 if the file is not a segment
+     */
+    static long id(Path file)
+    {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName()
+                .toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static OutboxSegment map(long id, Path file, int size) throws IOException
+    {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw"))
+        {
+            // a new file is filled with zeros, which reads as the end of the written records
+            randomAccessFile.setLength(size);
+            return new OutboxSegment(id, file, randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Writes the record at the offset, without forcing it to disk.
+     *
+     * @return the offset after the record, or -1 if it does not fit into the segment
+     */
+    int append(int offset, byte[] payload)
+    {
+        int next = offset + RECORD_HEADER_SIZE + payload.length;
+        if (next > buffer.capacity())
+        {
+            return -1;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.put(payload);
+        record.putInt(offset + 4, crc(payload));
+        record.putInt(offset, payload.length);
+        return next;
+    }
+
+    /**
+     * Marks the end of the records when the next record goes into a new segment.
+     */
+    void close(int offset)
+    {
+        if (offset + 4 <= buffer.capacity())
+        {
+            buffer.putInt(offset, CLOSED);
+        }
+    }
+
+    void force()
+    {
+        buffer.force();
+    }
+
+    /**
+     * @return the payload of the record at the offset, or null if there is no intact record
+     */
+    byte[] read(int offset)
+    {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity())
+        {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > buffer.capacity() - offset - RECORD_HEADER_SIZE)
+        {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE);
+        record.get(payload);
+        return crc(payload) == buffer.getInt(offset + 4) ? payload : null;
+    }
+
+    void delete() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    static int next(int offset, byte[] payload)
+    {
+        return offset + RECORD_HEADER_SIZE + payload.length;
+    }
+
+    private static int crc(byte[] payload)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.outbox;
+
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of records in a directory of memory mapped segments. Appends are forced to disk together every
+ * fsync interval, and their results complete once they are. A single reader reads the records forced to disk from
+ * the position it committed last; segments before that position are deleted. After a restart the records after the
+ * last committed position are read again, and new records go into a new segment.
+ */
+@Slf4j
+final class OutboxSpool
+{
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, OutboxSegment> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object appendLock = new Object();
+    private OutboxSegment active;
+    private int writeOffset;
+    private List<CompletableFuture<Void>> unforced = new ArrayList<>();
+    private boolean closed;
+    private volatile Position forced;
+    private volatile Position checkpoint;
+
+    OutboxSpool(Path directory, int segmentSize, Duration fsyncInterval) throws IOException
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        Position committed = readCheckpoint();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory))
+        {
+            files = list.filter(file -> OutboxSegment.id(file) >= 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files)
+        {
+            if (committed != null && OutboxSegment.id(file) < committed.segment)
+            {
+                Files.delete(file);
+            }
+            else
+            {
+                OutboxSegment segment = OutboxSegment.open(file);
+                segments.put(segment.getId(), segment);
+            }
+        }
+
+        long activeId = Math.max(segments.isEmpty() ? -1 : segments.lastKey(),
+                committed == null ? -1 : committed.segment) + 1;
+        active = OutboxSegment.create(directory, activeId, segmentSize);
+        segments.put(activeId, active);
+        forced = new Position(activeId, 0);
+        checkpoint = committed != null && segments.containsKey(committed.segment) ? committed :
+                new Position(segments.firstKey(), 0);
+
+        long nanos = Math.max(fsyncInterval.toNanos(), TimeUnit.MILLISECONDS.toNanos(1));
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("asset-outbox-fsync-"));
+        flusher.scheduleWithFixedDelay(this::force, nanos, nanos, TimeUnit.NANOSECONDS);
+        log.info(String.format("[INIT LOAD] OutboxSpool initialized, %d segments to replay.", segments.size() - 1));
+    }
+
+    /**
+     * Appends the record; the result completes once it is forced to disk.
+     */
+    CompletableFuture<Void> append(byte[] payload)
+    {
+        if (payload.length > segmentSize - OutboxSegment.RECORD_HEADER_SIZE)
+        {
+            return DeliveryFutures.failed(new IllegalArgumentException(String.format(
+                    "Record of %d bytes does not fit into an outbox segment", payload.length)));
+        }
+
+        synchronized (appendLock)
+        {
+            if (closed)
+            {
+                return DeliveryFutures.failed(new IllegalStateException("The outbox is closed"));
+            }
+            int next = active.append(writeOffset, payload);
+            if (next < 0)
+            {
+                try
+                {
+                    rotate();
+                }
+                catch (IOException e)
+                {
+                    return DeliveryFutures.failed(e);
+                }
+                next = active.append(writeOffset, payload);
+            }
+            writeOffset = next;
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            unforced.add(result);
+            return result;
+        }
+    }
+
+    /**
+     * Reads up to the given number of records forced to disk, starting at the position.
+     */
+    Batch read(Position from, int maxRecords)
+    {
+        Position limit = forced;
+        List<byte[]> records = new ArrayList<>();
+        long segmentId = from.segment;
+        int offset = from.offset;
+        while (records.size() < maxRecords && (segmentId < limit.segment || offset < limit.offset))
+        {
+            OutboxSegment segment = segments.get(segmentId);
+            byte[] record = segment == null ? null : segment.read(offset);
+            if (record != null)
+            {
+                records.add(record);
+                offset = OutboxSegment.next(offset, record);
+            }
+            else if (segmentId < limit.segment)
+            {
+                // the rest of a segment that was closed, or written until a crash
+                segmentId = segments.higherKey(segmentId);
+                offset = 0;
+            }
+            else
+            {
+                break;
+            }
+        }
+        return new Batch(records, new Position(segmentId, offset));
+    }
+
+    Position getCheckpoint()
+    {
+        return checkpoint;
+    }
+
+    /**
+     * Records that everything before the position was processed, and deletes the segments before it. A crash before
+     * the checkpoint is written only means that the records are read again.
+     */
+    void commit(Position position) throws IOException
+    {
+        if (position.equals(checkpoint))
+        {
+            return;
+        }
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temporary, (position.segment + " " + position.offset).getBytes(StandardCharsets.US_ASCII));
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = position;
+        for (OutboxSegment drained : new ArrayList<>(segments.headMap(position.segment)
+                .values()))
+        {
+            segments.remove(drained.getId());
+            drained.delete();
+        }
+    }
+
+    /**
+     * Bytes forced to disk but not committed yet, counting closed segments as full.
+     */
+    long backlogBytes()
+    {
+        Position from = checkpoint;
+        Position to = forced;
+        return (to.segment - from.segment) * segmentSize + to.offset - from.offset;
+    }
+
+    /**
+     * Rejects further appends and forces the appended records to disk.
+     */
+    void close() throws InterruptedException
+    {
+        synchronized (appendLock)
+        {
+            closed = true;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        force();
+    }
+
+    private void rotate() throws IOException
+    {
+        OutboxSegment next = OutboxSegment.create(directory, active.getId() + 1, segmentSize);
+        active.close(writeOffset);
+        // the records of the old segment are acknowledged by the next force, which only forces the new one
+        active.force();
+        segments.put(next.getId(), next);
+        active = next;
+        writeOffset = 0;
+    }
+
+    private void force()
+    {
+        List<CompletableFuture<Void>> results;
+        OutboxSegment segment;
+        Position position;
+        synchronized (appendLock)
+        {
+            if (unforced.isEmpty())
+            {
+                return;
+            }
+            results = unforced;
+            unforced = new ArrayList<>();
+            segment = active;
+            position = new Position(active.getId(), writeOffset);
+        }
+
+        try
+        {
+            segment.force();
+            forced = position;
+            results.forEach(result -> result.complete(null));
+        }
+        catch (Exception e)
+        {
+            log.error("[DIS] Outbox records not forced to disk: " + DeliveryFutures.failureMessage(e));
+            results.forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private Position readCheckpoint() throws IOException
+    {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file))
+        {
+            return null;
+        }
+        String[] position = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim()
+                .split(" ");
+        return new Position(Long.parseLong(position[0]), Integer.parseInt(position[1]));
+    }
+
+    /**
+     * A record boundary in the spool.
+     */
+    static final class Position
+    {
+        private final long segment;
+        private final int offset;
+
+        Position(long segment, int offset)
+        {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Position && ((Position) other).segment == segment &&
+                    ((Position) other).offset == offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(segment) * 31 + offset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return segment + ":" + offset;
+        }
+    }
+
+    /**
+     * Records read from the spool, and the position after them.
+     */
+    static final class Batch
+    {
+        private final List<byte[]> records;
+        private final Position end;
+
+        private Batch(List<byte[]> records, Position end)
+        {
+            this.records = records;
+            this.end = end;
+        }
+
+        List<byte[]> getRecords()
+        {
+            return records;
+        }
+
+        Position getEnd()
+        {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.AssetRetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes over the ledger sends that failed for a transient reason, so the request reports the asset as processed
+ * instead of having the client send it again. Retries wait a random time up to an exponential backoff and are limited
+ * by a {@link RetryBudget}; sends the budget does not cover fail as before. Assets whose retries run out, or which are
+ * still waiting for a retry on shutdown, are appended to the dead-letter file, which is sent again by the
+ * {@code deadletters} actuator endpoint. The file is written on the retry thread, a batch of dead letters with one
+ * force to disk, never on the Kafka producer thread that completed the failed send. Tenants in transactional mode are
+ * not retried, as a retry of single assets would break up their transactions.
+ */
+@Slf4j
+@Component
+public class AssetRetryEngine implements DisposableBean
+{
+    private final AssetGateway ledgerGateway;
+    private final AssetJsonCodec codec;
+    private final AssetDeliveryProperties deliveryProperties;
+    private final AssetRetryProperties properties;
+    private final RetryBudget budget;
+    private final DeadLetterStore deadLetters;
+    private final ScheduledExecutorService scheduler;
+    private final int sendBatchSize;
+    private final Set<RetryTask> pending = ConcurrentHashMap.newKeySet();
+    private final Queue<DeadLetter> unwrittenDeadLetters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deadLetterWriteScheduled = new AtomicBoolean();
+    private final Counter retries;
+    private final Counter recovered;
+    private final Counter budgetExhausted;
+    private final Counter deadLettered;
+
+    public AssetRetryEngine(AssetGateway ledgerGateway, AssetJsonCodec codec,
+                            AssetDeliveryProperties deliveryProperties, AssetRetryProperties properties,
+                            MeterRegistry meterRegistry,
+                            @Value("${asset.ingest.send-batch-size:10000}") int sendBatchSize) throws IOException
+    {
+        this.ledgerGateway = ledgerGateway;
+        this.codec = codec;
+        this.deliveryProperties = deliveryProperties;
+        this.properties = properties;
+        this.budget = new RetryBudget(properties.getBudgetPercent(), properties.getBudgetReserve());
+        this.deadLetters = properties.isEnabled() ? new DeadLetterStore(properties.getDeadLetterFile()) : null;
+        this.scheduler = properties.isEnabled() ? newScheduler() : null;
+        this.sendBatchSize = Math.max(1, sendBatchSize);
+
+        this.retries = Counter.builder("dis.asset.retry.attempts")
+                .description("Ledger sends retried in the background")
+                .register(meterRegistry);
+        this.recovered = Counter.builder("dis.asset.retry.recovered")
+                .description("Assets delivered by a background retry")
+                .register(meterRegistry);
+        this.budgetExhausted = Counter.builder("dis.asset.retry.budget.exhausted")
+                .description("Failed ledger sends not retried because the retry budget was used up")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("dis.asset.retry.dead.lettered")
+                .description("Assets appended to the dead-letter file")
+                .register(meterRegistry);
+        Gauge.builder("dis.asset.retry.pending", pending, Set::size)
+                .description("Assets waiting for a background retry")
+                .register(meterRegistry);
+        Gauge.builder("dis.asset.retry.budget.available", budget, RetryBudget::available)
+                .description("Retries the retry budget allows right now")
+                .register(meterRegistry);
+        if (deadLetters != null)
+        {
+            Gauge.builder("dis.asset.deadletter.depth", deadLetters, DeadLetterStore::depth)
+                    .description("Assets in the dead-letter file")
+                    .register(meterRegistry);
+        }
+        log.info(String.format("[INIT LOAD] AssetRetryEngine initialized, %s.", properties.isEnabled() ?
+                "budget " + properties.getBudgetPercent() + "%, max attempts " + properties.getMaxAttempts() :
+                "disabled"));
+    }
+
+    /**
+     * Wraps the results of sent assets: a result failing for a transient reason completes normally instead once the
+     * asset is taken over by a background retry.
+     */
+    public List<CompletableFuture<Void>> track(List<Asset> assets, List<CompletableFuture<Void>> deliveries)
+    {
+        if (scheduler == null)
+        {
+            return deliveries;
+        }
+
+        budget.deposit(assets.size());
+        List<CompletableFuture<Void>> results = new ArrayList<>(assets.size());
+        for (int i = 0; i < assets.size(); i++)
+        {
+            Asset asset = assets.get(i);
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            deliveries.get(i)
+                    .whenComplete((ignored, failure) -> {
+                        if (failure == null || takeOver(asset, cause(failure)))
+                        {
+                            result.complete(null);
+                        }
+                        else
+                        {
+                            result.completeExceptionally(cause(failure));
+                        }
+                    });
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Sends every asset of the dead-letter file once more, a send batch at a time so the replay stays within the
+     * in-flight limit of the producer; those failing again go back to the file, and those that cannot be read are
+     * kept in its unreadable file. If the file cannot be written, the replay fails and keeps all of its assets for the
+     * next one, including those already delivered.
+     *
+     * @return the number of assets sent
+     */
+    public int replayDeadLetters() throws IOException
+    {
+        if (deadLetters == null)
+        {
+            return 0;
+        }
+        return deadLetters.replay(records -> {
+            List<Asset> assets = new ArrayList<>(records.size());
+            for (byte[] record : records)
+            {
+                try
+                {
+                    assets.add(codec.readAssetBytes(record));
+                }
+                catch (IOException e)
+                {
+                    deadLetters.quarantine(record);
+                    log.error("[DIS] Dead letter quarantined, it cannot be read: " + e.getMessage());
+                }
+            }
+            for (int from = 0; from < assets.size(); from += sendBatchSize)
+            {
+                List<Asset> chunk = assets.subList(from, Math.min(assets.size(), from + sendBatchSize));
+                List<CompletableFuture<Void>> deliveries = ledgerGateway.sendToLedger(chunk);
+                List<DeadLetter> failed = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    Throwable failure = DeliveryFutures.failure(deliveries.get(i));
+                    if (failure != null)
+                    {
+                        failed.add(new DeadLetter(chunk.get(i), failure));
+                    }
+                }
+                writeDeadLetters(failed);
+            }
+        });
+    }
+
+    public long getDeadLetterDepth()
+    {
+        return deadLetters == null ? 0 : deadLetters.depth();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException
+    {
+        if (scheduler != null)
+        {
+            // a running retry or dead-letter write finishes, the retries still waiting are dead-lettered
+            scheduler.shutdown();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            for (RetryTask task : pending)
+            {
+                unwrittenDeadLetters.add(new DeadLetter(task.asset,
+                        new RejectedExecutionException("Shut down before the retry")));
+            }
+            flushDeadLetters();
+        }
+    }
+
+    private boolean takeOver(Asset asset, Throwable failure)
+    {
+        if (properties.getMaxAttempts() < 2 || !DeliveryFutures.isTransient(failure) ||
+                deliveryProperties.modeFor(asset.getMspId())
+                        .isTransactional())
+        {
+            return false;
+        }
+        if (!budget.tryWithdraw())
+        {
+            budgetExhausted.increment();
+            return false;
+        }
+        schedule(new RetryTask(asset, 1));
+        return true;
+    }
+
+    private void retry(RetryTask task)
+    {
+        if (!pending.remove(task))
+        {
+            return;
+        }
+        retries.increment();
+        CompletableFuture<Void> delivery;
+        try
+        {
+            delivery = ledgerGateway.sendToLedger(Collections.singletonList(task.asset))
+                    .get(0);
+        }
+        catch (Exception e)
+        {
+            delivery = DeliveryFutures.failed(e);
+        }
+
+        delivery.whenComplete((ignored, failure) -> {
+            if (failure == null)
+            {
+                recovered.increment();
+            }
+            else if (task.attempt + 1 >= properties.getMaxAttempts() ||
+                    !DeliveryFutures.isTransient(cause(failure)))
+            {
+                deadLetter(task.asset, cause(failure));
+            }
+            else if (!budget.tryWithdraw())
+            {
+                budgetExhausted.increment();
+                deadLetter(task.asset, cause(failure));
+            }
+            else
+            {
+                schedule(new RetryTask(task.asset, task.attempt + 1));
+            }
+        });
+    }
+
+    /**
+     * Full jitter: a random wait up to the backoff of the attempt, so retries of assets that failed together spread
+     * out instead of hitting the broker together again.
+     */
+    private void schedule(RetryTask task)
+    {
+        long backoff = Math.min(properties.getMaxBackoff()
+                .toMillis(), properties.getInitialBackoff()
+                .toMillis() << Math.min(task.attempt - 1, 30));
+        pending.add(task);
+        try
+        {
+            scheduler.schedule(() -> retry(task), ThreadLocalRandom.current()
+                    .nextLong(backoff + 1), TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            pending.remove(task);
+            deadLetter(task.asset, e);
+        }
+    }
+
+    /**
+     * Queues the asset for the dead-letter file; called on the thread that completed its send, which is the Kafka
+     * producer thread, so the file is written on the retry thread.
+     */
+    private void deadLetter(Asset asset, Throwable failure)
+    {
+        unwrittenDeadLetters.add(new DeadLetter(asset, failure));
+        if (deadLetterWriteScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                scheduler.execute(this::flushDeadLetters);
+            }
+            catch (RejectedExecutionException e)
+            {
+                flushDeadLetters();
+            }
+        }
+    }
+
+    private void flushDeadLetters()
+    {
+        deadLetterWriteScheduled.set(false);
+        List<DeadLetter> batch = new ArrayList<>();
+        for (DeadLetter deadLetter = unwrittenDeadLetters.poll(); deadLetter != null;
+             deadLetter = unwrittenDeadLetters.poll())
+        {
+            batch.add(deadLetter);
+        }
+        try
+        {
+            writeDeadLetters(batch);
+        }
+        catch (IOException e)
+        {
+            for (DeadLetter deadLetter : batch)
+            {
+                log.error(String.format("[DIS][%s] Asset lost, the dead-letter file failed (%s): %s",
+                        deadLetter.asset.getMspId(), e.getMessage(), deadLetter.asset));
+            }
+        }
+    }
+
+    private void writeDeadLetters(List<DeadLetter> batch) throws IOException
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (DeadLetter deadLetter : batch)
+        {
+            records.add(codec.writeAssetBytes(deadLetter.asset));
+        }
+        deadLetters.append(records);
+        deadLettered.increment(batch.size());
+        for (DeadLetter deadLetter : batch)
+        {
+            Asset asset = deadLetter.asset;
+            log.error(String.format("[DIS][%s] Asset serialNumber '%s' of request %s dead-lettered: %s",
+                    asset.getMspId(), asset.getSerialNumberManufacturer(), asset.getRequestProcessId(),
+                    DeliveryFutures.failureMessage(deadLetter.failure)));
+        }
+    }
+
+    /**
+     * Runs the retries; once shut down, the retries still waiting are dropped instead of run, as they are
+     * dead-lettered.
+     */
+    private static ScheduledExecutorService newScheduler()
+    {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                new CustomizableThreadFactory("asset-retry-"));
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return scheduler;
+    }
+
+    private static Throwable cause(Throwable failure)
+    {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static final class DeadLetter
+    {
+        private final Asset asset;
+        private final Throwable failure;
+
+        private DeadLetter(Asset asset, Throwable failure)
+        {
+            this.asset = asset;
+            this.failure = failure;
+        }
+    }
+
+    private static final class RetryTask
+    {
+        private final Asset asset;
+        private final int attempt;
+
+        private RetryTask(Asset asset, int attempt)
+        {
+            this.asset = asset;
+            this.attempt = attempt;
+        }
+    }
+}
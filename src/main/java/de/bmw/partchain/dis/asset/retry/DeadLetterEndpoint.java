@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/deadletters} shows how many assets are in the dead-letter file, {@code POST} sends them
+ * again. Only expose it where the management endpoints are not reachable by clients.
+ */
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint
+{
+    private final AssetRetryEngine retryEngine;
+
+    public DeadLetterEndpoint(AssetRetryEngine retryEngine)
+    {
+        this.retryEngine = retryEngine;
+    }
+
+    @ReadOperation
+    public Map<String, Long> depth()
+    {
+        return Collections.singletonMap("depth", retryEngine.getDeadLetterDepth());
+    }
+
+    @WriteOperation
+    public Map<String, Integer> replay() throws IOException
+    {
+        return Collections.singletonMap("replayed", retryEngine.replayDeadLetters());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only file of records, one per line, forced to disk before {@link #append(byte[])} returns. A replay
+ * moves the file aside first, so records dead-lettered again during the replay go into a new file; the moved file is
+ * only deleted once the replay is done, and read again by the next replay after a crash. Records that cannot be read
+ * any more are quarantined in a file of their own next to it, which is never replayed.
+ */
+public final class DeadLetterStore
+{
+    private static final String REPLAYING_SUFFIX = ".replaying";
+    private static final String UNREADABLE_SUFFIX = ".unreadable";
+
+    private final Path file;
+    private final Path replaying;
+    private final Path unreadable;
+    private final AtomicLong depth;
+    private final Object replayLock = new Object();
+
+    public DeadLetterStore(String file) throws IOException
+    {
+        this.file = Paths.get(file)
+                .toAbsolutePath();
+        this.replaying = Paths.get(file + REPLAYING_SUFFIX)
+                .toAbsolutePath();
+        this.unreadable = Paths.get(file + UNREADABLE_SUFFIX)
+                .toAbsolutePath();
+        Files.createDirectories(this.file.getParent());
+        this.depth = new AtomicLong(read(this.file).size() + read(replaying).size());
+    }
+
+    public synchronized void append(byte[] record) throws IOException
+    {
+        append(Collections.singletonList(record));
+    }
+
+    /**
+     * Appends the records with a single force to disk.
+     */
+    public synchronized void append(List<byte[]> records) throws IOException
+    {
+        write(file, records);
+        depth.addAndGet(records.size());
+    }
+
+    /**
+     * Keeps a record that cannot be read for inspection; it is not counted in the depth.
+     */
+    public synchronized void quarantine(byte[] record) throws IOException
+    {
+        write(unreadable, Collections.singletonList(record));
+    }
+
+    /**
+     * Hands the records to the replay and deletes them once it returns.
+     *
+     * @return the number of records replayed
+     */
+    public int replay(Replay replay) throws IOException
+    {
+        synchronized (replayLock)
+        {
+            synchronized (this)
+            {
+                if (!Files.exists(replaying) && Files.exists(file))
+                {
+                    Files.move(file, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            List<byte[]> records = read(replaying);
+            replay.replay(records);
+            Files.deleteIfExists(replaying);
+            depth.addAndGet(-records.size());
+            return records.size();
+        }
+    }
+
+    public long depth()
+    {
+        return depth.get();
+    }
+
+    private static void write(Path file, List<byte[]> records) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND))
+        {
+            for (byte[] record : records)
+            {
+                ByteBuffer line = ByteBuffer.allocate(record.length + 1)
+                        .put(record)
+                        .put((byte) '\n');
+                line.flip();
+                while (line.hasRemaining())
+                {
+                    channel.write(line);
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    private static List<byte[]> read(Path file) throws IOException
+    {
+        if (!Files.exists(file))
+        {
+            return Collections.emptyList();
+        }
+        List<byte[]> records = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            if (!line.isEmpty())
+            {
+                records.add(line.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Sends the records again, and returns once each was delivered or appended to the store again.
+     */
+    public interface Replay
+    {
+        void replay(List<byte[]> records) throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of retries: every send deposits a fraction of a retry, every retry withdraws a whole one. The bucket
+ * starts full and holds at most the reserve, so retries stay at the budget percentage of the sends once an outage
+ * outlasts the reserve.
+ */
+final class RetryBudget
+{
+    private static final long RETRY = 1000;
+
+    private final long depositPerSend;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(double percent, int reserve)
+    {
+        this.depositPerSend = Math.round(percent * RETRY / 100);
+        this.capacity = Math.max(reserve, 1) * RETRY;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void deposit(int sends)
+    {
+        balance.accumulateAndGet(sends * depositPerSend, (current, deposit) -> Math.min(capacity, current + deposit));
+    }
+
+    boolean tryWithdraw()
+    {
+        long current;
+        do
+        {
+            current = balance.get();
+            if (current < RETRY)
+            {
+                return false;
+            }
+        }
+        while (!balance.compareAndSet(current, current - RETRY));
+        return true;
+    }
+
+    double available()
+    {
+        return (double) balance.get() / RETRY;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Owns the worker pool that reads, validates and maps the assets of a request in parallel. Tasks run with the
+ * security context of the request thread that submitted them, so the mspId claim resolves on the workers as well.
+ */
+@Slf4j
+@Component
+public class AssetIngestExecutor implements DisposableBean
+{
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+    private final int sendBatchSize;
+
+    public AssetIngestExecutor(@Value("${asset.ingest.sequential:false}") boolean sequential,
+                               @Value("${asset.ingest.workers:0}") int workers,
+                               @Value("${asset.ingest.chunk-size:256}") int chunkSize,
+                               @Value("${asset.ingest.send-batch-size:10000}") int sendBatchSize)
+    {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime()
+                .availableProcessors();
+        this.executor = sequential ? null : new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("asset-ingest-")));
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxPendingChunks = 2 * poolSize;
+        this.sendBatchSize = Math.max(1, sendBatchSize);
+        log.info(String.format("[INIT LOAD] AssetIngestExecutor initialized, %s.",
+                sequential ? "sequential" : poolSize + " workers, chunk size " + this.chunkSize));
+    }
+
+    /**
+     * Starts processing the items of one request; results reach the consumer in the order the items were added.
+     */
+    public <T, R> OrderedChunkProcessor<T, R> newProcessor(BiFunction<Integer, T, R> work, Consumer<R> consumer)
+    {
+        return new OrderedChunkProcessor<>(executor, chunkSize, maxPendingChunks, work, consumer);
+    }
+
+    /**
+     * How many processed assets are sent to the ledger gateway in one batch.
+     */
+    public int getSendBatchSize()
+    {
+        return sendBatchSize;
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+}
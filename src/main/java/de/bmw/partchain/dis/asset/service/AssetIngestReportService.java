@@ -15,33 +15,208 @@
  *
  */
 
+
 package de.bmw.partchain.dis.asset.service;
 
 import de.bmw.partchain.dis.asset.gateway.AssetImportReportGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
 import de.bmw.partchain.dis.asset.mapper.AssetIngestReportMapper;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestFailureGroup;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
 import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the failed assets of a request off the request thread. By default a request yields one summary with the
+ * failures grouped by reason; tenants in {@code asset.report.detailed-tenants} get one report per failed asset
+ * instead. Reports wait in a bounded queue, and are dropped and counted when it is full.
+ */
+@Slf4j
 @Service
-public class AssetIngestReportService
+public class AssetIngestReportService implements DisposableBean
 {
+    private static final String SOURCE_SERVICE = "DIS";
+
     private final AssetIngestReportMapper mapper;
     private final AssetImportReportGateway gateway;
+    private final int sampleSize;
+    private final Set<String> detailedTenants;
+    private final ThreadPoolExecutor publisher;
+    private final Counter dropped;
 
     public AssetIngestReportService(AssetIngestReportMapper mapper,
-                                    AssetImportReportGateway gateway)
+                                    AssetImportReportGateway gateway,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${asset.report.queue-capacity:1000}") int queueCapacity,
+                                    @Value("${asset.report.sample-size:10}") int sampleSize,
+                                    @Value("${asset.report.detailed-tenants:}") String[] detailedTenants)
     {
         this.mapper = mapper;
         this.gateway = gateway;
+        this.sampleSize = sampleSize;
+        this.detailedTenants = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        this.detailedTenants.addAll(Arrays.asList(detailedTenants));
+        this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new CustomizableThreadFactory("asset-report-"));
+        Gauge.builder("dis.asset.report.queue.size", publisher, executor -> executor.getQueue()
+                .size())
+                .description("Asset ingest reports waiting to be published")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("dis.asset.report.dropped")
+                .description("Asset ingest reports dropped because the report queue was full")
+                .register(meterRegistry);
     }
 
     public void publishAssetIngestReport(SentToLedgerResponseDto sentToLedgerResponseDto)
     {
-        sentToLedgerResponseDto.getFailedAssets()
-                .stream()
-                .map(failedAssetResponseDto ->
-                        mapper.mapTo(failedAssetResponseDto, sentToLedgerResponseDto)
-                )
-                .forEach(gateway::publishAssetIngestReport);
+        Runnable publish;
+        if (detailedTenants.contains(String.valueOf(sentToLedgerResponseDto.getMspId())))
+        {
+            List<AssetIngestReport> reports = sentToLedgerResponseDto.getFailedAssets()
+                    .stream()
+                    .map(failedAssetResponseDto ->
+                            mapper.mapTo(failedAssetResponseDto, sentToLedgerResponseDto)
+                    )
+                    .collect(Collectors.toList());
+            publish = () -> publishReports(sentToLedgerResponseDto, reports);
+        }
+        else
+        {
+            AssetIngestSummary summary = summarize(sentToLedgerResponseDto, sampleSize);
+            publish = () -> publishSummary(summary);
+        }
+
+        try
+        {
+            publisher.execute(publish);
+        }
+        catch (RejectedExecutionException e)
+        {
+            dropped.increment();
+            log.error(String.format("[DIS][%s] Asset ingest report of request %s dropped, the report queue is full",
+                    sentToLedgerResponseDto.getMspId(), sentToLedgerResponseDto.getRequestProcessId()));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException
+    {
+        publisher.shutdown();
+        if (!publisher.awaitTermination(10, TimeUnit.SECONDS))
+        {
+            log.warn(String.format("[DIS] %s asset ingest reports not published before shutdown", publisher.getQueue()
+                    .size()));
+            publisher.shutdownNow();
+        }
+    }
+
+    /**
+     * Groups the failed assets by fail type and reason, counting an asset once per reason and warning it has.
+     */
+    static AssetIngestSummary summarize(SentToLedgerResponseDto sentToLedgerResponseDto, int sampleSize)
+    {
+        Map<List<Object>, AssetIngestFailureGroup> groups = new LinkedHashMap<>();
+        for (AssetFailedReportResponseDto failedAsset : sentToLedgerResponseDto.getFailedAssets())
+        {
+            if (failedAsset.getFailReasons() != null)
+            {
+                for (String reason : failedAsset.getFailReasons())
+                {
+                    addToGroup(groups, failedAsset, reason, false, sampleSize);
+                }
+            }
+            if (failedAsset.getWarnings() != null)
+            {
+                for (String warning : failedAsset.getWarnings())
+                {
+                    addToGroup(groups, failedAsset, warning, true, sampleSize);
+                }
+            }
+        }
+
+        AssetIngestSummary summary = new AssetIngestSummary();
+        summary.setRequestProcessId(sentToLedgerResponseDto.getRequestProcessId());
+        summary.setRequestDate(sentToLedgerResponseDto.getRequestDate());
+        summary.setMspId(sentToLedgerResponseDto.getMspId());
+        summary.setFailedAssets(sentToLedgerResponseDto.getFailedAssets()
+                .size());
+        summary.setFailures(new ArrayList<>(groups.values()));
+        summary.setSourceService(SOURCE_SERVICE);
+        return summary;
+    }
+
+    private static void addToGroup(Map<List<Object>, AssetIngestFailureGroup> groups,
+                                   AssetFailedReportResponseDto failedAsset, String reason, boolean warning,
+                                   int sampleSize)
+    {
+        List<Object> key = new ArrayList<>(3);
+        key.add(failedAsset.getFailType());
+        key.add(reason);
+        key.add(warning);
+        AssetIngestFailureGroup group = groups.computeIfAbsent(key, newKey -> {
+            AssetIngestFailureGroup newGroup = new AssetIngestFailureGroup();
+            newGroup.setFailType(failedAsset.getFailType());
+            newGroup.setReason(reason);
+            newGroup.setWarning(warning);
+            return newGroup;
+        });
+        group.setCount(group.getCount() + 1);
+        if (group.getSampleIndexes()
+                .size() < sampleSize)
+        {
+            group.getSampleIndexes()
+                    .add(failedAsset.getIndex());
+            group.getSampleAssets()
+                    .add(failedAsset.getAsset());
+        }
+    }
+
+    private void publishSummary(AssetIngestSummary summary)
+    {
+        String failure = DeliveryFutures.failureMessage(gateway.publishAssetIngestSummary(summary));
+        if (failure != null)
+        {
+            log.error(String.format("[DIS][%s] Asset ingest summary of request %s not published: %s",
+                    summary.getMspId(), summary.getRequestProcessId(), failure));
+        }
+    }
+
+    private void publishReports(SentToLedgerResponseDto sentToLedgerResponseDto, List<AssetIngestReport> reports)
+    {
+        List<CompletableFuture<Void>> deliveries = gateway.publishAssetIngestReports(reports);
+        for (int i = 0; i < deliveries.size(); i++)
+        {
+            String failure = DeliveryFutures.failureMessage(deliveries.get(i));
+            if (failure != null)
+            {
+                log.error(String.format("[DIS][%s] Asset ingest report for INDEX: %s not published: %s",
+                        sentToLedgerResponseDto.getMspId(), sentToLedgerResponseDto.getFailedAssets()
+                                .get(i)
+                                .getIndex(), failure));
+            }
+        }
     }
 }
@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the small batches of concurrent requests of the same tenant into larger gateway batches. The first assets
+ * of a tenant wait at most {@code asset.coalesce.linger-ms} for others to join; a merged batch reaching
+ * {@code asset.coalesce.max-batch-size} is sent at once, and batches that big by themselves are never held back.
+ * Every request still gets one result per asset, in the order of its assets. The assets of tenants in
+ * transactional mode are never merged, as each request is a transaction of its own.
+ */
+@Slf4j
+@Component
+public class AssetSendCoalescer implements DisposableBean
+{
+    private final AssetGateway ledgerGateway;
+    private final AssetDeliveryProperties deliveryProperties;
+    private final long lingerMs;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, PendingBatch> pendingBatches = new ConcurrentHashMap<>();
+
+    public AssetSendCoalescer(AssetGateway ledgerGateway, AssetDeliveryProperties deliveryProperties,
+                              @Value("${asset.coalesce.enabled:false}") boolean enabled,
+                              @Value("${asset.coalesce.linger-ms:5}") long lingerMs,
+                              @Value("${asset.coalesce.max-batch-size:1000}") int maxBatchSize)
+    {
+        this.ledgerGateway = ledgerGateway;
+        this.deliveryProperties = deliveryProperties;
+        this.lingerMs = lingerMs;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("asset-coalesce-")) : null;
+        log.info(String.format("[INIT LOAD] AssetSendCoalescer initialized, %s.",
+                enabled ? "linger " + lingerMs + " ms, max batch size " + this.maxBatchSize : "disabled"));
+    }
+
+    /**
+     * Sends the assets of one request; the results are in the order of the assets.
+     */
+    public List<CompletableFuture<Void>> send(List<Asset> assets)
+    {
+        if (scheduler == null || assets.size() >= maxBatchSize || isTransactional(assets))
+        {
+            return ledgerGateway.sendToLedger(assets);
+        }
+
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(assets.size());
+        Map<String, PendingBatch> byTenant = new LinkedHashMap<>();
+        for (Asset asset : assets)
+        {
+            CompletableFuture<Void> delivery = new CompletableFuture<>();
+            deliveries.add(delivery);
+            byTenant.computeIfAbsent(String.valueOf(asset.getMspId()), mspId -> new PendingBatch())
+                    .add(asset, delivery);
+        }
+        for (Map.Entry<String, PendingBatch> tenant : byTenant.entrySet())
+        {
+            join(tenant.getKey(), tenant.getValue());
+        }
+        return deliveries;
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (scheduler != null)
+        {
+            scheduler.shutdownNow();
+            for (PendingBatch pendingBatch : pendingBatches.values())
+            {
+                flush(pendingBatch);
+            }
+        }
+    }
+
+    private boolean isTransactional(List<Asset> assets)
+    {
+        return assets.stream()
+                .anyMatch(asset -> deliveryProperties.modeFor(asset.getMspId())
+                        .isTransactional());
+    }
+
+    private void join(String mspId, PendingBatch assets)
+    {
+        PendingBatch pendingBatch = pendingBatches.computeIfAbsent(mspId, key -> new PendingBatch());
+        PendingBatch full = null;
+        boolean first;
+        synchronized (pendingBatch)
+        {
+            first = pendingBatch.isEmpty();
+            pendingBatch.addAll(assets);
+            if (pendingBatch.size() >= maxBatchSize)
+            {
+                full = pendingBatch.drain();
+            }
+        }
+
+        if (full != null)
+        {
+            send(full);
+        }
+        else if (first)
+        {
+            try
+            {
+                scheduler.schedule(() -> flush(pendingBatch), lingerMs, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // shutting down, nobody would flush the batch later
+                flush(pendingBatch);
+            }
+        }
+    }
+
+    private void flush(PendingBatch pendingBatch)
+    {
+        PendingBatch batch;
+        synchronized (pendingBatch)
+        {
+            batch = pendingBatch.drain();
+        }
+        if (!batch.isEmpty())
+        {
+            send(batch);
+        }
+    }
+
+    private void send(PendingBatch batch)
+    {
+        List<CompletableFuture<Void>> results;
+        try
+        {
+            results = ledgerGateway.sendToLedger(batch.assets);
+        }
+        catch (Exception e)
+        {
+            results = Collections.nCopies(batch.size(), DeliveryFutures.failed(e));
+        }
+
+        for (int i = 0; i < batch.size(); i++)
+        {
+            CompletableFuture<Void> delivery = batch.deliveries.get(i);
+            results.get(i)
+                    .whenComplete((result, failure) -> {
+                        if (failure == null)
+                        {
+                            delivery.complete(null);
+                        }
+                        else
+                        {
+                            delivery.completeExceptionally(failure);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Assets waiting to be sent, with the results handed out for them.
+     */
+    private static final class PendingBatch
+    {
+        private List<Asset> assets = new ArrayList<>();
+        private List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+
+        private void add(Asset asset, CompletableFuture<Void> delivery)
+        {
+            assets.add(asset);
+            deliveries.add(delivery);
+        }
+
+        private void addAll(PendingBatch batch)
+        {
+            assets.addAll(batch.assets);
+            deliveries.addAll(batch.deliveries);
+        }
+
+        private PendingBatch drain()
+        {
+            PendingBatch batch = new PendingBatch();
+            batch.assets = assets;
+            batch.deliveries = deliveries;
+            assets = new ArrayList<>();
+            deliveries = new ArrayList<>();
+            return batch;
+        }
+
+        private boolean isEmpty()
+        {
+            return assets.isEmpty();
+        }
+
+        private int size()
+        {
+            return assets.size();
+        }
+    }
+}
@@ -20,28 +20,48 @@ package de.bmw.partchain.dis.asset.service;
 import de.bmw.partchain.dis.asset.mapper.AssetMapper;
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
 import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
-import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.retry.AssetRetryEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 public class AssetService
 {
-    private final AssetGateway ledgerGateway;
     private final AssetMapper mapper;
+    private final AssetSendCoalescer coalescer;
+    private final AssetRetryEngine retryEngine;
 
-    public AssetService(AssetGateway ledgerGateway, AssetMapper mapper)
+    public AssetService(AssetMapper mapper, AssetSendCoalescer coalescer, AssetRetryEngine retryEngine)
     {
-        this.ledgerGateway = ledgerGateway;
         this.mapper = mapper;
+        this.coalescer = coalescer;
+        this.retryEngine = retryEngine;
     }
 
-    public void sendToLedger(AssetRequestDto assetRequestDto, String requestProcessId)
+    /**
+     * Maps a valid request asset to the asset published to the ledger. Needs the caller's security context for the
+     * mspId, and may run on an ingest worker thread. All assets of a request share its requestDate.
+     */
+    public Asset prepare(AssetRequestDto assetRequestDto, String requestProcessId, Date requestDate)
     {
         Asset assetKafkaEntity = mapper.mapFrom(assetRequestDto);
         assetKafkaEntity.setRequestProcessId(requestProcessId);
+        assetKafkaEntity.setRequestDate(requestDate);
+        return assetKafkaEntity;
+    }
 
-        ledgerGateway.sendToLedger(assetKafkaEntity);
+    /**
+     * Sends the prepared assets of one request as a batch, possibly merged with those of concurrent requests; the
+     * results are in the order of the assets. Assets failing for a transient reason may be taken over by a background
+     * retry, and count as delivered then.
+     */
+    public List<CompletableFuture<Void>> send(List<Asset> assetKafkaEntities)
+    {
+        return retryEngine.track(assetKafkaEntities, coalescer.send(assetKafkaEntities));
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Runs the work for the items of one request in chunks on the ingest workers and hands the results to the consumer on
+ * the calling thread, in the order the items were added. Without an executor every item is processed right away on
+ * the calling thread. At most {@code maxPendingChunks} chunks are in flight, so a large request is never held in
+ * memory as a whole.
+ */
+public class OrderedChunkProcessor<T, R> implements AutoCloseable
+{
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+    private final BiFunction<Integer, T, R> work;
+    private final Consumer<R> consumer;
+    private final Deque<Future<List<R>>> pending = new ArrayDeque<>();
+    private int[] indices;
+    private List<T> items;
+
+    OrderedChunkProcessor(ExecutorService executor, int chunkSize, int maxPendingChunks,
+                          BiFunction<Integer, T, R> work, Consumer<R> consumer)
+    {
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxPendingChunks = maxPendingChunks;
+        this.work = work;
+        this.consumer = consumer;
+        this.indices = new int[chunkSize];
+        this.items = new ArrayList<>(chunkSize);
+    }
+
+    public void add(int index, T item)
+    {
+        if (executor == null)
+        {
+            consumer.accept(work.apply(index, item));
+            return;
+        }
+
+        indices[items.size()] = index;
+        items.add(item);
+        if (items.size() == chunkSize)
+        {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Processes the remaining items and waits until every result was handed to the consumer.
+     */
+    public void finish()
+    {
+        if (!items.isEmpty())
+        {
+            submitChunk();
+        }
+        while (!pending.isEmpty())
+        {
+            consumeNextChunk();
+        }
+    }
+
+    /**
+     * Cancels the chunks whose results were not consumed, e.g. when the request failed midway.
+     */
+    @Override
+    public void close()
+    {
+        pending.forEach(future -> future.cancel(true));
+        pending.clear();
+    }
+
+    private void submitChunk()
+    {
+        int[] chunkIndices = indices;
+        List<T> chunkItems = items;
+        indices = new int[chunkSize];
+        items = new ArrayList<>(chunkSize);
+
+        pending.add(executor.submit(() -> {
+            List<R> results = new ArrayList<>(chunkItems.size());
+            for (int i = 0; i < chunkItems.size(); i++)
+            {
+                results.add(work.apply(chunkIndices[i], chunkItems.get(i)));
+            }
+            return results;
+        }));
+        while (pending.size() > maxPendingChunks)
+        {
+            consumeNextChunk();
+        }
+    }
+
+    private void consumeNextChunk()
+    {
+        List<R> results;
+        try
+        {
+            results = pending.poll()
+                    .get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                    .interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ingest workers", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        results.forEach(consumer);
+    }
+}
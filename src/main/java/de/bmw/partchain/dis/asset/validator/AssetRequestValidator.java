@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.validator;
+
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.validation.Constraint;
+import javax.validation.ConstraintValidator;
+import javax.validation.constraints.NotNull;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Validates {@link AssetRequestDto} against the constraints declared on its fields without going through a bean
+ * validation provider. The checks are resolved from the annotations once at startup; messages are returned ordered by
+ * field name and, within a field, with {@link NotNull} first. The reflection API does not specify the order of fields
+ * or annotations, so it is sorted explicitly. The validator holds no per-call state, so one instance serves all
+ * request threads.
+ */
+@Slf4j
+@Component
+public class AssetRequestValidator
+{
+    private final List<FieldConstraint> constraints;
+
+    public AssetRequestValidator()
+    {
+        constraints = Collections.unmodifiableList(compile(AssetRequestDto.class));
+        log.info(String.format("[INIT LOAD] AssetRequestValidator initialized with %s constraints.",
+                constraints.size()));
+    }
+
+    public List<String> validate(AssetRequestDto asset)
+    {
+        if (asset == null)
+        {
+            throw new IllegalArgumentException("The object to be validated must not be null");
+        }
+
+        List<String> failReasons = null;
+        for (FieldConstraint constraint : constraints)
+        {
+            if (!constraint.isValid(asset))
+            {
+                if (failReasons == null)
+                {
+                    failReasons = new ArrayList<>();
+                }
+                failReasons.add(constraint.message);
+            }
+        }
+        return failReasons == null ? new ArrayList<>() : failReasons;
+    }
+
+    private static List<FieldConstraint> compile(Class<?> type)
+    {
+        Field[] fields = type.getDeclaredFields();
+        Arrays.sort(fields, Comparator.comparing(Field::getName));
+
+        List<FieldConstraint> result = new ArrayList<>();
+        for (Field field : fields)
+        {
+            Annotation[] annotations = field.getDeclaredAnnotations();
+            Arrays.sort(annotations, Comparator.comparing((Annotation annotation) -> !(annotation instanceof NotNull))
+                    .thenComparing(annotation -> annotation.annotationType()
+                            .getName()));
+            for (Annotation annotation : annotations)
+            {
+                if (annotation instanceof NotNull)
+                {
+                    result.add(new FieldConstraint(field, Objects::nonNull, getMessage(annotation)));
+                }
+                else if (annotation.annotationType()
+                        .isAnnotationPresent(Constraint.class))
+                {
+                    result.add(new FieldConstraint(field, createCheck(annotation), getMessage(annotation)));
+                }
+            }
+        }
+        return result;
+    }
+
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private static Predicate<Object> createCheck(Annotation annotation)
+    {
+        Class<? extends ConstraintValidator<?, ?>>[] validators = annotation.annotationType()
+                .getAnnotation(Constraint.class)
+                .validatedBy();
+        if (validators.length != 1)
+        {
+            throw new IllegalStateException(String.format("Constraint %s is not supported by %s",
+                    annotation.annotationType()
+                            .getSimpleName(), AssetRequestValidator.class.getSimpleName()));
+        }
+
+        ConstraintValidator<Annotation, Object> validator =
+                (ConstraintValidator<Annotation, Object>) validators[0].getDeclaredConstructor()
+                        .newInstance();
+        validator.initialize(annotation);
+        return value -> validator.isValid(value, null);
+    }
+
+    @SneakyThrows
+    private static String getMessage(Annotation annotation)
+    {
+        String message = (String) annotation.annotationType()
+                .getMethod("message")
+                .invoke(annotation);
+        if (message.contains("{"))
+        {
+            throw new IllegalStateException(String.format("Message of %s needs interpolation which is not supported",
+                    annotation.annotationType()
+                            .getSimpleName()));
+        }
+        return message;
+    }
+
+    private static final class FieldConstraint
+    {
+        private final Field field;
+        private final Predicate<Object> check;
+        private final String message;
+
+        private FieldConstraint(Field field, Predicate<Object> check, String message)
+        {
+            field.setAccessible(true);
+            this.field = field;
+            this.check = check;
+            this.message = message;
+        }
+
+        @SneakyThrows
+        private boolean isValid(AssetRequestDto asset)
+        {
+            return check.test(field.get(asset));
+        }
+    }
+}
@@ -15,24 +15,58 @@
  *
  */
 
+
 package de.bmw.partchain.dis.asset.validator;
 
 import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.util.Arrays;
 import java.util.Locale;
-import java.util.stream.Collectors;
 
+/**
+ * Checks country codes against {@link Locale#getISOCountries()}, precomputed into a bitmap with one bit per pair of
+ * upper case letters.
+ */
 @Slf4j
 public class CountryCodeValidator implements ConstraintValidator<IsISO3166_1Alpha2CountryCode, String>
 {
+    private static final int LETTERS = 26;
+    private static final long[] ISO_COUNTRIES = createIsoCountriesBitmap();
+
     @Override
     public boolean isValid(String countryCode, ConstraintValidatorContext constraintValidatorContext)
     {
-        return Arrays.stream(Locale.getISOCountries())
-                .collect(Collectors.toSet())
-                .contains(countryCode);
+        int index = countryCode == null ? -1 : bitIndex(countryCode);
+        return index >= 0 && (ISO_COUNTRIES[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static int bitIndex(String countryCode)
+    {
+        if (countryCode.length() != 2)
+        {
+            return -1;
+        }
+        int first = countryCode.charAt(0) - 'A';
+        int second = countryCode.charAt(1) - 'A';
+        if (first < 0 || first >= LETTERS || second < 0 || second >= LETTERS)
+        {
+            return -1;
+        }
+        return first * LETTERS + second;
+    }
+
+    private static long[] createIsoCountriesBitmap()
+    {
+        long[] bitmap = new long[(LETTERS * LETTERS + 63) / 64];
+        for (String country : Locale.getISOCountries())
+        {
+            int index = bitIndex(country);
+            if (index >= 0)
+            {
+                bitmap[index >>> 6] |= 1L << index;
+            }
+        }
+        return bitmap;
     }
 }
@@ -15,6 +15,7 @@
  *
  */
 
+
 package de.bmw.partchain.dis.asset.validator;
 
 import lombok.extern.slf4j.Slf4j;
@@ -25,22 +26,192 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
+/**
+ * Accepts exactly the texts that {@code LocalDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME)} accepts,
+ * using a hand written scanner that neither allocates nor throws on invalid input.
+ */
 @Slf4j
 public class DateGmtValidator implements ConstraintValidator<IsDateGMT, String>
 {
+    private static final int MAX_YEAR = 999_999_999;
+    private static final int MAX_YEAR_DIGITS = 10;
+    private static final int MIN_YEAR_DIGITS = 4;
+    private static final int MAX_FRACTION_DIGITS = 9;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    /**
+     * The offset is parsed leniently by ISO_OFFSET_DATE_TIME, which only accepts a bare "+HH" since Java 9.
+     */
+    private static final boolean HOUR_ONLY_OFFSET = isHourOnlyOffsetAccepted();
+
     @Override
     public boolean isValid(String dateGmt, ConstraintValidatorContext constraintValidatorContext)
     {
-        boolean result = false;
-        if (dateGmt != null)
+        return dateGmt != null && isOffsetDateTime(dateGmt);
+    }
+
+    static boolean isOffsetDateTime(CharSequence text)
+    {
+        int length = text.length();
+        if (length == 0)
+        {
+            return false;
+        }
+
+        int pos = 0;
+        char sign = text.charAt(0);
+        if (sign == '+' || sign == '-')
+        {
+            pos++;
+        }
+        int yearStart = pos;
+        long year = 0;
+        while (pos < length && pos - yearStart < MAX_YEAR_DIGITS && isDigit(text.charAt(pos)))
+        {
+            year = year * 10 + (text.charAt(pos++) - '0');
+        }
+        int yearDigits = pos - yearStart;
+        if (yearDigits < MIN_YEAR_DIGITS
+                || (sign == '+' && yearDigits == MIN_YEAR_DIGITS)
+                || (sign == '-' && year == 0)
+                || (sign != '+' && sign != '-' && yearDigits > MIN_YEAR_DIGITS)
+                || year > MAX_YEAR)
+        {
+            return false;
+        }
+
+        int month = twoDigits(text, pos + 1);
+        int day = twoDigits(text, pos + 4);
+        if (!isChar(text, pos, '-') || !isChar(text, pos + 3, '-') || month < 1 || month > 12 || day < 1
+                || day > daysInMonth(sign == '-' ? -year : year, month))
+        {
+            return false;
+        }
+        pos += 6;
+
+        if (pos >= length || (text.charAt(pos) != 'T' && text.charAt(pos) != 't'))
         {
-            try
+            return false;
+        }
+        int hour = twoDigits(text, pos + 1);
+        int minute = twoDigits(text, pos + 4);
+        if (hour < 0 || hour > 23 || !isChar(text, pos + 3, ':') || minute < 0 || minute > 59)
+        {
+            return false;
+        }
+        pos += 6;
+
+        if (isChar(text, pos, ':'))
+        {
+            int second = twoDigits(text, pos + 1);
+            if (second < 0 || second > 59)
             {
-                LocalDateTime.parse(dateGmt, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-                result = true;
+                return false;
             }
-            catch (DateTimeParseException ignored) { }
+            pos += 3;
+
+            if (isChar(text, pos, '.'))
+            {
+                int fractionEnd = Math.min(++pos + MAX_FRACTION_DIGITS, length);
+                while (pos < fractionEnd && isDigit(text.charAt(pos)))
+                {
+                    pos++;
+                }
+            }
+        }
+
+        return isOffset(text, pos);
+    }
+
+    private static boolean isOffset(CharSequence text, int pos)
+    {
+        int length = text.length();
+        if (pos >= length)
+        {
+            return false;
+        }
+
+        char sign = text.charAt(pos);
+        if (sign == 'Z' || sign == 'z')
+        {
+            return pos + 1 == length;
+        }
+        if (sign != '+' && sign != '-')
+        {
+            return false;
+        }
+
+        int hours = twoDigits(text, pos + 1);
+        if (hours < 0 || hours > 23)
+        {
+            return false;
+        }
+        int offsetSeconds = hours * 3600;
+        pos += 3;
+
+        int minutes = colonAndTwoDigits(text, pos);
+        if (minutes >= 0 && minutes <= 59)
+        {
+            offsetSeconds += minutes * 60;
+            pos += 3;
+            int seconds = colonAndTwoDigits(text, pos);
+            if (seconds >= 0 && seconds <= 59)
+            {
+                offsetSeconds += seconds;
+                pos += 3;
+            }
+        }
+        else if (!HOUR_ONLY_OFFSET)
+        {
+            return false;
+        }
+
+        return pos == length && offsetSeconds <= MAX_OFFSET_SECONDS;
+    }
+
+    private static int colonAndTwoDigits(CharSequence text, int pos)
+    {
+        return isChar(text, pos, ':') ? twoDigits(text, pos + 1) : -1;
+    }
+
+    /**
+     * Returns the value of the two ASCII digits at the given position, or -1 if there are none.
+     */
+    private static int twoDigits(CharSequence text, int pos)
+    {
+        if (pos + 2 > text.length() || !isDigit(text.charAt(pos)) || !isDigit(text.charAt(pos + 1)))
+        {
+            return -1;
+        }
+        return (text.charAt(pos) - '0') * 10 + (text.charAt(pos + 1) - '0');
+    }
+
+    private static boolean isChar(CharSequence text, int pos, char expected)
+    {
+        return pos < text.length() && text.charAt(pos) == expected;
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(long year, int month)
+    {
+        boolean leapYear = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && leapYear ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    private static boolean isHourOnlyOffsetAccepted()
+    {
+        try
+        {
+            LocalDateTime.parse("2000-01-01T00:00+01", DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            return true;
+        }
+        catch (DateTimeParseException e)
+        {
+            return false;
         }
-        return result;
     }
 }
@@ -0,0 +1,265 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes assets in the Avro binary encoding of {@code schema/ledger-asset.avsc}, so no field names are repeated per
+ * record. A record starts with a zero magic byte and the big endian schema id, which is resolved through the
+ * {@link SchemaRegistry} on first use; JSON records never start with a zero byte, so consumers can tell both apart.
+ * The components serial numbers are written sorted, each as the length of the prefix it shares with the previous one
+ * (in code points) and the rest of it; a null serial number comes first.
+ */
+@Slf4j
+@Component
+public class AssetBinaryEncoder
+{
+    public static final String SUBJECT = "ledger-asset";
+    public static final byte MAGIC_BYTE = 0;
+
+    private final SchemaRegistry schemaRegistry;
+    private final String schema;
+    private volatile int schemaId;
+
+    @SneakyThrows
+    public AssetBinaryEncoder(SchemaRegistry schemaRegistry)
+    {
+        this.schemaRegistry = schemaRegistry;
+        try (InputStream inputStream = AssetBinaryEncoder.class.getResourceAsStream("/schema/ledger-asset.avsc"))
+        {
+            schema = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        }
+        log.info("[INIT LOAD] AssetBinaryEncoder initialized.");
+    }
+
+    public String getSchema()
+    {
+        return schema;
+    }
+
+    public byte[] encode(Asset asset)
+    {
+        BinaryWriter out = new BinaryWriter();
+        out.write(MAGIC_BYTE);
+        out.writeFixedInt(schemaId());
+        out.writeNullableString(asset.getRequestProcessId());
+        out.writeNullableDate(asset.getRequestDate());
+        out.writeNullableString(asset.getManufacturer());
+        out.writeNullableString(asset.getProductionCountryCodeManufacturer());
+        out.writeNullableString(asset.getPartNameManufacturer());
+        out.writeNullableString(asset.getPartNumberManufacturer());
+        out.writeNullableString(asset.getPartNumberCustomer());
+        out.writeNullableString(asset.getSerialNumberManufacturer());
+        out.writeNullableString(asset.getSerialNumberCustomer());
+        out.writeNullableEnum(asset.getQualityStatus());
+        out.writeNullablePrefixCompressed(asset.getComponentsSerialNumbers());
+        out.writeNullableString(asset.getStatus());
+        out.writeNullableString(asset.getProductionDateGmt());
+        out.writeNullableString(asset.getMspId());
+        out.writeNullableEnum(asset.getSerialNumberType());
+        out.writeNullableString(asset.getManufacturerPlant());
+        out.writeNullableString(asset.getManufacturerLine());
+        out.writeNullableMap(asset.getCustomFields());
+        out.writeNullableMap(asset.getQualityDocuments());
+        return out.toByteArray();
+    }
+
+    private int schemaId()
+    {
+        int id = schemaId;
+        if (id == 0)
+        {
+            id = schemaRegistry.register(SUBJECT, schema);
+            schemaId = id;
+        }
+        return id;
+    }
+
+    /**
+     * The length of the prefix both strings share, in chars, without splitting a surrogate pair.
+     */
+    static int sharedPrefix(String previous, String next)
+    {
+        int length = Math.min(previous.length(), next.length());
+        int shared = 0;
+        while (shared < length && previous.charAt(shared) == next.charAt(shared))
+        {
+            shared++;
+        }
+        if (shared > 0 && Character.isHighSurrogate(next.charAt(shared - 1)))
+        {
+            shared--;
+        }
+        return shared;
+    }
+
+    /**
+     * An unsynchronized byte buffer with the Avro primitives.
+     */
+    private static final class BinaryWriter
+    {
+        private byte[] buffer = new byte[512];
+        private int count;
+
+        private void write(int value)
+        {
+            ensureCapacity(1);
+            buffer[count++] = (byte) value;
+        }
+
+        private void write(byte[] bytes)
+        {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        private void ensureCapacity(int length)
+        {
+            if (count + length > buffer.length)
+            {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+            }
+        }
+
+        private byte[] toByteArray()
+        {
+            return Arrays.copyOf(buffer, count);
+        }
+
+        private void writeFixedInt(int value)
+        {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        private void writeLong(long value)
+        {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0)
+            {
+                write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            write((int) zigZag);
+        }
+
+        private void writeString(String value)
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(bytes.length);
+            write(bytes);
+        }
+
+        /**
+         * Writes the union branch, 0 for null and 1 for a value, and returns whether a value follows.
+         */
+        private boolean writeUnionIndex(Object value)
+        {
+            writeLong(value == null ? 0 : 1);
+            return value != null;
+        }
+
+        private void writeNullableString(String value)
+        {
+            if (writeUnionIndex(value))
+            {
+                writeString(value);
+            }
+        }
+
+        private void writeNullableDate(Date value)
+        {
+            if (writeUnionIndex(value))
+            {
+                writeLong(value.getTime());
+            }
+        }
+
+        private void writeNullableEnum(Enum<?> value)
+        {
+            if (writeUnionIndex(value))
+            {
+                writeLong(value.ordinal());
+            }
+        }
+
+        private void writeNullableMap(Map<String, String> value)
+        {
+            if (writeUnionIndex(value))
+            {
+                if (!value.isEmpty())
+                {
+                    writeLong(value.size());
+                    for (Map.Entry<String, String> entry : value.entrySet())
+                    {
+                        writeString(entry.getKey());
+                        writeNullableString(entry.getValue());
+                    }
+                }
+                writeLong(0);
+            }
+        }
+
+        private void writeNullablePrefixCompressed(Collection<String> value)
+        {
+            if (writeUnionIndex(value))
+            {
+                if (!value.isEmpty())
+                {
+                    List<String> sorted = new ArrayList<>(value);
+                    sorted.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+                    writeLong(sorted.size());
+                    String previous = "";
+                    for (String next : sorted)
+                    {
+                        if (next == null)
+                        {
+                            writeLong(0);
+                            writeNullableString(null);
+                            continue;
+                        }
+                        int shared = sharedPrefix(previous, next);
+                        writeLong(next.codePointCount(0, shared));
+                        writeNullableString(next.substring(shared));
+                        previous = next;
+                    }
+                }
+                writeLong(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the schemas as files named {@code <id>-<subject>.avsc} in a local directory, for runs without a central
+ * registry. Ids are numbered across all subjects, starting at 1.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "schema.registry", havingValue = "file", matchIfMissing = true)
+public class FileSchemaRegistry implements SchemaRegistry
+{
+    private static final String SUFFIX = ".avsc";
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d{1,9})-(.+)\\.avsc");
+
+    private final Path directory;
+
+    public FileSchemaRegistry(@Value("${schema.directory:schemas}") String directory)
+    {
+        this.directory = Paths.get(directory);
+        log.info("[INIT LOAD] FileSchemaRegistry initialized.");
+    }
+
+    @SneakyThrows
+    @Override
+    public synchronized int register(String subject, String schema)
+    {
+        Files.createDirectories(directory);
+        int maxId = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX))
+        {
+            for (Path file : files)
+            {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName()
+                        .toString());
+                if (!matcher.matches())
+                {
+                    continue;
+                }
+                int id = Integer.parseInt(matcher.group(1));
+                if (matcher.group(2)
+                        .equals(subject) && schema.equals(read(file)))
+                {
+                    return id;
+                }
+                maxId = Math.max(maxId, id);
+            }
+        }
+
+        int id = maxId + 1;
+        Files.write(directory.resolve(fileName(id, subject)), schema.getBytes(StandardCharsets.UTF_8));
+        log.info(String.format("[DIS] Registered schema %s of subject %s in %s", id, subject, directory));
+        return id;
+    }
+
+    @SneakyThrows
+    @Override
+    public synchronized String schema(int id)
+    {
+        if (Files.isDirectory(directory))
+        {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, id + "-*" + SUFFIX))
+            {
+                for (Path file : files)
+                {
+                    return read(file);
+                }
+            }
+        }
+        throw new IllegalArgumentException(String.format("No schema with id %s in %s", id, directory));
+    }
+
+    private static String fileName(int id, String subject)
+    {
+        return id + "-" + subject + SUFFIX;
+    }
+
+    private static String read(Path file) throws IOException
+    {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+/**
+ * Hands out the ids that binary records carry instead of their schema.
+ */
+public interface SchemaRegistry
+{
+    /**
+     * Returns the id of the schema, registering it under the subject if it is not known yet.
+     */
+    int register(String subject, String schema);
+
+    /**
+     * Returns the schema registered under the id.
+     *
+     * @throws IllegalArgumentException if no schema has the id
+     */
+    String schema(int id);
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import lombok.SneakyThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * A zstd dictionary trained by {@link ZstdDictionaryTrainer}, used to compress single records. Small records share
+ * most of their content with the samples the dictionary was trained on, which plain per-record compression cannot
+ * make use of. Consumers need the same dictionary to decompress, so records name it by its id.
+ */
+public final class ZstdDictionary
+{
+    public static final String FILE_SUFFIX = ".zdict";
+
+    private static final int MAGIC_NUMBER = 0xEC30A437;
+
+    private final long id;
+    private final ZstdDictCompress compressDictionary;
+
+    public ZstdDictionary(byte[] dictionary, int level)
+    {
+        this.id = dictionaryId(dictionary);
+        this.compressDictionary = new ZstdDictCompress(dictionary, level);
+    }
+
+    @SneakyThrows
+    public static ZstdDictionary load(String path, int level)
+    {
+        return new ZstdDictionary(Files.readAllBytes(Paths.get(path)), level);
+    }
+
+    /**
+     * The id stored in the dictionary, which zstd also writes into every frame compressed with it.
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    public byte[] compress(byte[] payload)
+    {
+        return Zstd.compress(payload, compressDictionary);
+    }
+
+    static long dictionaryId(byte[] dictionary)
+    {
+        ByteBuffer header = ByteBuffer.wrap(dictionary)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (dictionary.length < 8 || header.getInt(0) != MAGIC_NUMBER)
+        {
+            throw new IllegalArgumentException("Not a trained zstd dictionary");
+        }
+        return Integer.toUnsignedLong(header.getInt(4));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Trains a zstd dictionary from sample payloads, one per line (e.g. asset records dumped from the ledger topic), and
+ * writes it as {@code <name>-<id>.zdict} into the output directory. Dictionaries are never overwritten, as consumers
+ * keep needing the old ones for records compressed before a new one was rolled out.
+ * <p>
+ * Usage: {@code ZstdDictionaryTrainer <samples> <output directory> <name> [dictionary size in bytes]}
+ */
+public final class ZstdDictionaryTrainer
+{
+    private static final int DEFAULT_DICTIONARY_SIZE = 32 * 1024;
+
+    private ZstdDictionaryTrainer()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 3)
+        {
+            System.err.println(
+                    "Usage: ZstdDictionaryTrainer <samples> <output directory> <name> [dictionary size in bytes]");
+            System.exit(1);
+        }
+        Path samples = Paths.get(args[0]);
+        int dictionarySize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DICTIONARY_SIZE;
+
+        byte[] dictionary = train(samples, dictionarySize);
+        Path directory = Files.createDirectories(Paths.get(args[1]));
+        Path file = directory.resolve(args[2] + "-" + ZstdDictionary.dictionaryId(dictionary) +
+                ZstdDictionary.FILE_SUFFIX);
+        Files.write(file, dictionary, StandardOpenOption.CREATE_NEW);
+        System.out.println(String.format("Wrote %s (%s bytes)", file, dictionary.length));
+    }
+
+    static byte[] train(Path samples, int dictionarySize) throws IOException
+    {
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(Files.size(samples), Integer.MAX_VALUE),
+                dictionarySize);
+        try (BufferedReader reader = Files.newBufferedReader(samples, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.isEmpty() && !trainer.addSample(line.getBytes(StandardCharsets.UTF_8)))
+                {
+                    break;
+                }
+            }
+        }
+        return trainer.trainSamples();
+    }
+}
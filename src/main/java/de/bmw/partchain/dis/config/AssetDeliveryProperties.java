@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.config;
+
+import de.bmw.partchain.dis.asset.gateway.DeliveryMode;
+import de.bmw.partchain.dis.asset.gateway.WireFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delivery settings of the Kafka ledger gateway, e.g. {@code asset.delivery.tenants.BMW=all} or
+ * {@code asset.delivery.tenant-formats.BMW=binary}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "asset.delivery")
+public class AssetDeliveryProperties
+{
+    /**
+     * Delivery mode of the tenants without an entry in {@link #tenants}.
+     */
+    private DeliveryMode mode = DeliveryMode.LEADER;
+    /**
+     * Delivery mode per mspId.
+     */
+    private Map<String, DeliveryMode> tenants = new HashMap<>();
+    /**
+     * Wire format of the tenants without an entry in {@link #tenantFormats}.
+     */
+    private WireFormat format = WireFormat.JSON;
+    /**
+     * Wire format per mspId.
+     */
+    private Map<String, WireFormat> tenantFormats = new HashMap<>();
+    /**
+     * Maximum number of ledger sends per producer waiting for the broker; further sends are rejected until one
+     * completes. Unset, it is {@link #maxInFlightBatches} send batches.
+     */
+    private Integer maxInFlight;
+    /**
+     * Full send batches ({@code asset.ingest.send-batch-size}) per producer that may wait for the broker at the same
+     * time, so concurrent large requests do not reject each other.
+     */
+    private int maxInFlightBatches = 4;
+    /**
+     * Sends are rejected while the producer buffer has less room left, instead of blocking the request thread.
+     */
+    private DataSize minAvailableBuffer = DataSize.ofMegabytes(1);
+    /**
+     * Retry-After announced to clients whose assets were rejected.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+    /**
+     * Producers of their own per mspId, so a heavy tenant cannot fill the producer buffer of the others.
+     */
+    private Map<String, ProducerSettings> producers = new HashMap<>();
+    /**
+     * Settings of the producer shared by the tenants without an entry in {@link #producers}.
+     */
+    private ProducerSettings sharedProducer = new ProducerSettings();
+    /**
+     * Settings of the producers of the tenants in {@link DeliveryMode#TRANSACTIONAL} mode.
+     */
+    private TransactionSettings transaction = new TransactionSettings();
+
+    public DeliveryMode modeFor(String mspId)
+    {
+        return forTenant(tenants, mspId, mode);
+    }
+
+    /**
+     * @return the default limit of ledger sends per producer waiting for the broker
+     */
+    public int maxInFlight(int sendBatchSize)
+    {
+        if (maxInFlight != null)
+        {
+            return maxInFlight;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (long) Math.max(1, maxInFlightBatches) * Math.max(1, sendBatchSize));
+    }
+
+    public WireFormat formatFor(String mspId)
+    {
+        return forTenant(tenantFormats, mspId, format);
+    }
+
+    /**
+     * @return the key of the mspId in {@link #producers}, or null if the tenant uses the shared producer
+     */
+    public String producerFor(String mspId)
+    {
+        return producers.keySet()
+                .stream()
+                .filter(tenant -> tenant.equalsIgnoreCase(mspId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static <T> T forTenant(Map<String, T> settings, String mspId, T defaultSetting)
+    {
+        return settings.entrySet()
+                .stream()
+                .filter(tenant -> tenant.getKey()
+                        .equalsIgnoreCase(mspId))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(defaultSetting);
+    }
+
+    /**
+     * Settings of one producer; unset values keep the Kafka defaults.
+     */
+    @Data
+    public static class ProducerSettings
+    {
+        /**
+         * buffer.memory of the producer.
+         */
+        private DataSize bufferMemory;
+        /**
+         * batch.size of the producer.
+         */
+        private DataSize batchSize;
+        /**
+         * linger.ms of the producer.
+         */
+        private Duration linger;
+        /**
+         * Overrides {@code asset.delivery.max-in-flight} for this producer.
+         */
+        private Integer maxInFlight;
+    }
+
+    /**
+     * Settings of the transactional producers.
+     */
+    @Data
+    public static class TransactionSettings
+    {
+        /**
+         * Prefix of the transactional ids, which must differ between instances. The default is random; a prefix
+         * that is stable per instance, e.g. the pod name, lets a restarted instance abort the transactions it left
+         * open instead of waiting for their timeout.
+         */
+        private String idPrefix = "dis-" + UUID.randomUUID() + "-";
+        /**
+         * Transactions that may be open at the same time per producer; each needs a producer of its own.
+         */
+        private int producers = 8;
+        /**
+         * transaction.timeout.ms of the transactional producers, and their max.block.ms instead of
+         * {@code kafka.maxBlockMs}: the commit flushes the sends of a whole request and may take as long as the
+         * transaction may stay open. It must not exceed the transaction.max.timeout.ms of the brokers.
+         */
+        private Duration timeout = Duration.ofMinutes(1);
+        /**
+         * Assets a request of a transactional tenant may hold. Such a request is one transaction and is held in
+         * memory until it is read completely, so larger ones are rejected with 413.
+         */
+        private int maxAssets = 50000;
+    }
+}
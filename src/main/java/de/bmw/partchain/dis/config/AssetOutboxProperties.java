@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the outbox spool between the request threads and Kafka, enabled with {@code asset.outbox.enabled=true}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "asset.outbox")
+public class AssetOutboxProperties
+{
+    /**
+     * Directory of the spool segments and the checkpoint of the drainer.
+     */
+    private String directory = "outbox";
+    /**
+     * Size of one memory mapped segment file; a record must fit into one.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    /**
+     * Appended assets are forced to disk together this often, and acknowledged once they are.
+     */
+    private Duration fsyncInterval = Duration.ofMillis(2);
+    /**
+     * Maximum number of spooled assets the drainer hands to Kafka at once.
+     */
+    private int batchSize = 1000;
+    /**
+     * Wait before the drainer sends assets Kafka did not accept again, doubled up to {@link #maxRetryBackoff}.
+     */
+    private Duration retryBackoff = Duration.ofMillis(100);
+    private Duration maxRetryBackoff = Duration.ofSeconds(10);
+    /**
+     * Sends of a spooled asset failing for a transient reason before it is dead-lettered; failures for other reasons
+     * are dead-lettered right away.
+     */
+    private int maxAttempts = 20;
+    /**
+     * Assets Kafka did not accept, sent again by the {@code outboxdeadletters} actuator endpoint.
+     */
+    private String deadLetterFile = "dead-letters/outbox.ndjson";
+}
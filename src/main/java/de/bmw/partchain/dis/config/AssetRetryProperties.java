@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of the background retries of failed ledger sends, enabled with {@code asset.retry.enabled=true}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "asset.retry")
+public class AssetRetryProperties
+{
+    private boolean enabled;
+    /**
+     * Sends of an asset, the first one included, before it goes to the dead-letter file.
+     */
+    private int maxAttempts = 5;
+    /**
+     * The wait before a retry is random, up to this backoff doubled per attempt and capped at {@link #maxBackoff}.
+     */
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+    /**
+     * Retries allowed as a percentage of the assets sent, so retries cannot multiply the load of an overloaded broker.
+     */
+    private double budgetPercent = 10;
+    /**
+     * Retries allowed beyond the budget percentage, e.g. after a quiet period; the budget never saves up more.
+     */
+    private int budgetReserve = 100;
+    /**
+     * Append-only file of the assets whose retries ran out, one JSON asset per line.
+     */
+    private String deadLetterFile = "dead-letters/assets.ndjson";
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings of the circuit breakers of the Kafka gateways, one per topic.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "kafka.circuit-breaker")
+public class CircuitBreakerProperties
+{
+    private boolean enabled = true;
+    /**
+     * Number of the last sends to a topic the failure and slow call rates are taken from.
+     */
+    private int windowSize = 100;
+    /**
+     * Sends needed in the window before the breaker may open.
+     */
+    private int minimumCalls = 20;
+    /**
+     * Percentage of failed sends in the window that opens the breaker.
+     */
+    private int failureRateThreshold = 50;
+    /**
+     * Sends taking longer than this count as slow.
+     */
+    private Duration slowCallDuration = Duration.ofSeconds(2);
+    /**
+     * Percentage of slow sends in the window that opens the breaker.
+     */
+    private int slowCallRateThreshold = 80;
+    /**
+     * Sends to the topic fail right away for this long once the breaker opened.
+     */
+    private Duration openDuration = Duration.ofSeconds(10);
+    /**
+     * Trial sends let through after the open duration; the breaker closes once all succeeded in time, and opens again
+     * on the first that did not.
+     */
+    private int halfOpenCalls = 5;
+}
@@ -19,6 +19,7 @@ package de.bmw.partchain.dis.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -37,6 +38,10 @@ public class KafkaProducerConfig
 {
     @Value(value = "${kafka.bootstrapAddress}")
     private String bootstrapAddress;
+    @Value(value = "${kafka.maxBlockMs:1000}")
+    private long maxBlockMs;
+    @Value(value = "${kafka.partitionerClass:}")
+    private String partitionerClass;
 
     public KafkaProducerConfig()
     {
@@ -44,17 +49,25 @@ public class KafkaProducerConfig
     }
 
     @Bean
-    public ProducerFactory<String, String> producerFactory()
+    public ProducerFactory<String, byte[]> producerFactory()
     {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // a send may block the request thread for this long, e.g. while the topic metadata is fetched
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        // the default key-hash partitioner spreads each tenant topic evenly, a custom one must keep a key on one
+        // partition to keep the order of its records
+        if (!partitionerClass.isEmpty())
+        {
+            configProps.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, partitionerClass);
+        }
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate()
+    public KafkaTemplate<String, byte[]> kafkaTemplate()
     {
         return new KafkaTemplate<>(producerFactory());
     }
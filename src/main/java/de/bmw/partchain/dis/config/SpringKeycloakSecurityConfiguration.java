@@ -22,6 +22,9 @@ import org.keycloak.adapters.springsecurity.KeycloakSecurityComponents;
 import org.keycloak.adapters.springsecurity.authentication.KeycloakAuthenticationProvider;
 import org.keycloak.adapters.springsecurity.config.KeycloakWebSecurityConfigurerAdapter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -122,8 +125,12 @@ public class SpringKeycloakSecurityConfiguration
 
             http.csrf()
                     .disable();
+            // the actuator listens on management.server.port; only health and metrics are open to scrapers there
             http
                     .authorizeRequests()
+                    .requestMatchers(EndpointRequest.toAnyEndpoint()
+                            .excluding(HealthEndpoint.class, MetricsEndpoint.class))
+                    .hasRole("ADMIN")
                     .antMatchers("/api/*")
                     .authenticated()
                     .anyRequest()
@@ -0,0 +1,208 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.controller;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.AssetImportReportEmptyGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.gateway.DeliveryMode;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.retry.AssetRetryEngine;
+import de.bmw.partchain.dis.asset.service.AssetIngestExecutor;
+import de.bmw.partchain.dis.asset.service.AssetIngestReportService;
+import de.bmw.partchain.dis.asset.service.AssetSendCoalescer;
+import de.bmw.partchain.dis.asset.service.AssetService;
+import de.bmw.partchain.dis.asset.validator.AssetRequestValidator;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.AssetRetryProperties;
+import de.bmw.partchain.dis.security.AuthenticationFacadeImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AssetControllerTest
+{
+    private static final String TENANT = "BMW";
+
+    private final List<List<Asset>> gatewayCalls = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * Fails all assets of a call once one of them fails, like a transaction that is aborted.
+     */
+    private final AssetGateway transactionalGateway = assets -> {
+        gatewayCalls.add(new ArrayList<>(assets));
+        CompletableFuture<Void> delivery = assets.stream()
+                .anyMatch(asset -> "fail".equals(asset.getSerialNumberManufacturer())) ?
+                DeliveryFutures.failed(new IllegalStateException("transaction aborted")) :
+                CompletableFuture.completedFuture(null);
+        return new ArrayList<>(Collections.nCopies(assets.size(), delivery));
+    };
+    private AssetDeliveryProperties deliveryProperties;
+    private AssetSendCoalescer coalescer;
+    private AssetIngestExecutor ingestExecutor;
+    private AssetIngestReportService reportService;
+    private AssetController controller;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        deliveryProperties = new AssetDeliveryProperties();
+        deliveryProperties.getTenants()
+                .put(TENANT, DeliveryMode.TRANSACTIONAL);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AssetJsonCodec codec = new AssetJsonCodec(false);
+        coalescer = new AssetSendCoalescer(transactionalGateway, deliveryProperties, true, 5, 1000);
+        AssetRetryEngine retryEngine = new AssetRetryEngine(transactionalGateway, codec, deliveryProperties,
+                new AssetRetryProperties(), meterRegistry, 3);
+        AssetService assetService = new AssetService(null, coalescer, retryEngine)
+        {
+            @Override
+            public Asset prepare(AssetRequestDto assetRequestDto, String requestProcessId, Date requestDate)
+            {
+                Asset asset = new Asset();
+                asset.setMspId(TENANT);
+                asset.setSerialNumberManufacturer(assetRequestDto.getSerialNumberManufacturer());
+                asset.setRequestProcessId(requestProcessId);
+                asset.setRequestDate(requestDate);
+                return asset;
+            }
+        };
+        AuthenticationFacadeImpl authenticationFacade = new AuthenticationFacadeImpl()
+        {
+            @Override
+            public String getOtherClaim(String claimName)
+            {
+                return TENANT;
+            }
+        };
+        ingestExecutor = new AssetIngestExecutor(true, 1, 2, 3);
+        reportService = new AssetIngestReportService(null, new AssetImportReportEmptyGateway(), meterRegistry, 10,
+                10, new String[0]);
+        controller = new AssetController(assetService, reportService, authenticationFacade, codec,
+                new AssetRequestValidator(), ingestExecutor, deliveryProperties);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        coalescer.destroy();
+        ingestExecutor.destroy();
+        reportService.destroy();
+    }
+
+    @Test
+    public void sendToLedger_transactionalRequestLargerThanSendBatch_oneTransactionFailingAsAWhole() throws Exception
+    {
+        //Arrange
+        byte[] body = request(7);
+
+        //Act
+        ResponseEntity<SentToLedgerResponseDto> response = controller.sendToLedger(MediaType.APPLICATION_JSON_VALUE,
+                new ByteArrayInputStream(body));
+
+        //Assert
+        assertEquals(1, gatewayCalls.size());
+        assertEquals(7, gatewayCalls.get(0)
+                .size());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody()
+                .getProcessedAssets()
+                .isEmpty());
+        assertEquals(7, response.getBody()
+                .getFailedAssets()
+                .size());
+    }
+
+    @Test
+    public void sendToLedger_transactionalRequestBeyondMaxAssets_rejectedWithoutSending() throws Exception
+    {
+        //Arrange
+        deliveryProperties.getTransaction()
+                .setMaxAssets(5);
+        byte[] body = request(7);
+
+        //Act
+        ResponseStatusException result = null;
+        try
+        {
+            controller.sendToLedger(MediaType.APPLICATION_JSON_VALUE, new ByteArrayInputStream(body));
+        }
+        catch (ResponseStatusException e)
+        {
+            result = e;
+        }
+
+        //Assert
+        assertNotNull(result);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, result.getStatus());
+        assertTrue(gatewayCalls.isEmpty());
+    }
+
+    private static byte[] request(int assets)
+    {
+        StringBuilder request = new StringBuilder("[");
+        for (int i = 0; i < assets; i++)
+        {
+            request.append(i == 0 ? "" : ",")
+                    .append(asset(i == 5 ? "fail" : "serial" + i));
+        }
+        return request.append("]")
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String asset(String serialNumberManufacturer)
+    {
+        return "{\"manufacturer\": \"manufacturerValue\"," +
+                "\"partNameManufacturer\": \"partNameManufacturerValue\"," +
+                "\"partNumberCustomer\": \"partNumberCustomerValue\"," +
+                "\"partNumberManufacturer\": \"partNumberManufacturerValue\"," +
+                "\"serialNumberManufacturer\": \"" + serialNumberManufacturer + "\"," +
+                "\"serialNumberCustomer\": \"serialNumberCustomerValue\"," +
+                "\"status\": \"statusValue\"," +
+                "\"serialNumberType\": \"SINGLE\"," +
+                "\"qualityStatus\": \"OK\"," +
+                "\"productionDateGmt\": \"2000-01-01T00:00:00Z\"," +
+                "\"productionCountryCodeManufacturer\": \"DE\"," +
+                "\"manufacturerPlant\": \"manufacturerPlantValue\"," +
+                "\"manufacturerLine\": \"manufacturerLineValue\"," +
+                "\"componentsSerialNumbers\": [\"component1\", \"component2\"]," +
+                "\"customFields\": {\"customKey\": \"customValue\"}," +
+                "\"qualityDocuments\": {\"qualityKey\": \"qualityValue\"}}";
+    }
+}
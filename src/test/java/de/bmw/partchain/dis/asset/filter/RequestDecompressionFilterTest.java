@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.filter;
+
+import com.github.luben.zstd.Zstd;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RequestDecompressionFilterTest
+{
+    private static final byte[] BODY = body();
+
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter(BODY.length);
+
+    @Test
+    public void doFilter_gzip_bodyDecompressed() throws Exception
+    {
+        //Arrange
+        MockHttpServletRequest request = request("gzip", gzip(BODY));
+        MockFilterChain chain = new MockFilterChain();
+
+        //Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Assert
+        HttpServletRequest result = (HttpServletRequest) chain.getRequest();
+        assertArrayEquals(BODY, StreamUtils.copyToByteArray(result.getInputStream()));
+        assertNull(result.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(-1, result.getContentLength());
+    }
+
+    @Test
+    public void doFilter_zlibAndRawDeflate_bodyDecompressed() throws Exception
+    {
+        for (boolean raw : new boolean[]{false, true})
+        {
+            //Arrange
+            MockHttpServletRequest request = request("deflate", deflate(BODY, raw));
+            MockFilterChain chain = new MockFilterChain();
+
+            //Act
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            //Assert
+            assertArrayEquals(BODY, StreamUtils.copyToByteArray(chain.getRequest()
+                    .getInputStream()));
+        }
+    }
+
+    @Test
+    public void doFilter_zstd_bodyDecompressed() throws Exception
+    {
+        //Arrange
+        MockHttpServletRequest request = request("zstd", Zstd.compress(BODY));
+        MockFilterChain chain = new MockFilterChain();
+
+        //Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Assert
+        assertArrayEquals(BODY, StreamUtils.copyToByteArray(chain.getRequest()
+                .getInputStream()));
+    }
+
+    @Test
+    public void doFilter_stackedEncodings_decodedInReverseOrder() throws Exception
+    {
+        //Arrange
+        MockHttpServletRequest request = request("deflate, gzip", gzip(deflate(BODY, false)));
+        MockFilterChain chain = new MockFilterChain();
+
+        //Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Assert
+        assertArrayEquals(BODY, StreamUtils.copyToByteArray(chain.getRequest()
+                .getInputStream()));
+    }
+
+    @Test(expected = DecompressedSizeExceededException.class)
+    public void doFilter_bodyLargerThanLimit_readFails() throws Exception
+    {
+        //Arrange
+        RequestDecompressionFilter limitedFilter = new RequestDecompressionFilter(BODY.length - 1);
+        MockHttpServletRequest request = request("gzip", gzip(BODY));
+        MockFilterChain chain = new MockFilterChain();
+        limitedFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Act
+        StreamUtils.copyToByteArray(chain.getRequest()
+                .getInputStream());
+    }
+
+    @Test
+    public void doFilter_unsupportedEncoding_unsupportedMediaType() throws Exception
+    {
+        //Arrange
+        MockHttpServletRequest request = request("br", BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //Act
+        filter.doFilter(request, response, chain);
+
+        //Assert
+        assertEquals(415, response.getStatus());
+        assertEquals(RequestDecompressionFilter.SUPPORTED_ENCODINGS, response.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    public void doFilter_noEncoding_requestUnchanged() throws Exception
+    {
+        //Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/asset/send-to-ledger");
+        request.setContent(BODY);
+        MockFilterChain chain = new MockFilterChain();
+
+        //Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Assert
+        assertSame(request, chain.getRequest());
+    }
+
+    private static MockHttpServletRequest request(String contentEncoding, byte[] content)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/asset/send-to-ledger");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        request.setContent(content);
+        return request;
+    }
+
+    private static byte[] body()
+    {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++)
+        {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"manufacturer\": \"manufacturerValue\", \"serialNumberManufacturer\": \"")
+                    .append(i)
+                    .append("\"}");
+        }
+        return body.append("]")
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException
+    {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(result))
+        {
+            out.write(content);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] content, boolean raw) throws IOException
+    {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(result, deflater))
+        {
+            out.write(content);
+        }
+        finally
+        {
+            deflater.end();
+        }
+        return result.toByteArray();
+    }
+}
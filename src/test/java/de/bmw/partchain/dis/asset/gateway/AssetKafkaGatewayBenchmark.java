@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Needs a broker, e.g. {@code mvn test -Pbenchmark -Dkafka.test.bootstrapAddress=localhost:9092}; skipped
+ * without one.
+ */
+@Slf4j
+public class AssetKafkaGatewayBenchmark
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sendToLedger_benchmark_reportsThroughputOfTransactionalAgainstAll() throws Exception
+    {
+        //Arrange
+        assumeTrue(AssetKafkaGatewayTest.BOOTSTRAP_ADDRESS != null);
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            assets.add(AssetKafkaGatewayTest.asset(i));
+        }
+
+        //Act
+        double all = assetsPerSecond(DeliveryMode.ALL, assets);
+        double transactional = assetsPerSecond(DeliveryMode.TRANSACTIONAL, assets);
+
+        //Assert
+        log.info(String.format("assets/s in batches of %d: all %.0f, transactional %.0f", assets.size(), all,
+                transactional));
+    }
+
+    /**
+     * Sends the batch a few rounds after a warm up round and fails on any undelivered asset.
+     */
+    private double assetsPerSecond(DeliveryMode mode, List<Asset> assets) throws Exception
+    {
+        AssetDeliveryProperties deliveryProperties = new AssetDeliveryProperties();
+        deliveryProperties.setMode(mode);
+        AssetKafkaGateway gateway = AssetKafkaGatewayTest.gateway(folder.getRoot(), deliveryProperties, 10000);
+        try
+        {
+            send(gateway, assets);
+            int rounds = 20;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++)
+            {
+                send(gateway, assets);
+            }
+            return (double) assets.size() * rounds * 1_000_000_000L / (System.nanoTime() - start);
+        }
+        finally
+        {
+            gateway.destroy();
+        }
+    }
+
+    private static void send(AssetKafkaGateway gateway, List<Asset> assets)
+    {
+        for (CompletableFuture<Void> delivery : gateway.sendToLedger(assets))
+        {
+            assertNull(DeliveryFutures.failureMessage(delivery));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.wire.AssetBinaryEncoder;
+import de.bmw.partchain.dis.asset.wire.FileSchemaRegistry;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Needs a broker, e.g. {@code mvn test -Dtest=AssetKafkaGatewayTest -Dkafka.test.bootstrapAddress=localhost:9092};
+ * skipped without one.
+ */
+public class AssetKafkaGatewayTest
+{
+    static final String BOOTSTRAP_ADDRESS = System.getProperty("kafka.test.bootstrapAddress");
+    private static final String MSP_ID = "dis-test";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sendToLedger_transactionalRequestLargerThanSendBatch_committed() throws Exception
+    {
+        //Arrange
+        assumeTrue(BOOTSTRAP_ADDRESS != null);
+        AssetDeliveryProperties deliveryProperties = new AssetDeliveryProperties();
+        deliveryProperties.setMode(DeliveryMode.TRANSACTIONAL);
+        AssetKafkaGateway gateway = gateway(folder.getRoot(), deliveryProperties, 1000);
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 25000; i++)
+        {
+            assets.add(asset(i));
+        }
+
+        //Act
+        List<CompletableFuture<Void>> result;
+        try
+        {
+            result = gateway.sendToLedger(assets);
+        }
+        finally
+        {
+            gateway.destroy();
+        }
+
+        //Assert
+        for (CompletableFuture<Void> delivery : result)
+        {
+            assertNull(DeliveryFutures.failureMessage(delivery));
+        }
+    }
+
+    /**
+     * A gateway sending to the broker at {@link #BOOTSTRAP_ADDRESS}; shared with {@link AssetKafkaGatewayBenchmark}.
+     */
+    static AssetKafkaGateway gateway(File schemaDirectory, AssetDeliveryProperties deliveryProperties,
+                                     int sendBatchSize)
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new AssetKafkaGateway(producerFactory(), new AssetJsonCodec(false),
+                new AssetBinaryEncoder(new FileSchemaRegistry(schemaDirectory.getPath())), deliveryProperties,
+                meterRegistry,
+                new CircuitBreakers(new CircuitBreakerProperties(), meterRegistry), false, "", 3, sendBatchSize);
+    }
+
+    private static DefaultKafkaProducerFactory<String, byte[]> producerFactory()
+    {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_ADDRESS);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // as in KafkaProducerConfig, far shorter than a commit of a large transaction
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000L);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    static Asset asset(int serialNumber)
+    {
+        Asset asset = new Asset();
+        asset.setMspId(MSP_ID);
+        asset.setRequestProcessId("b0f4e3d2-5a8c-4c1e-9d57-2f6a1c3e8b90");
+        asset.setRequestDate(new Date(1_600_000_000_000L + serialNumber));
+        asset.setManufacturer("manufacturerValue");
+        asset.setPartNumberManufacturer("partNumberManufacturerValue");
+        asset.setSerialNumberManufacturer("serialNumberManufacturer" + serialNumber);
+        asset.setQualityStatus(AssetQualityStatus.OK);
+        return asset;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.config.CircuitBreakerProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CircuitBreakerTest
+{
+    private long now;
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp()
+    {
+        CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setOpenDuration(Duration.ofSeconds(10));
+        properties.setHalfOpenCalls(2);
+        circuitBreaker = new CircuitBreaker("BMW", properties, () -> now);
+    }
+
+    @Test
+    public void tryAcquire_halfOfSendsFailed_rejectedWhileOpen()
+    {
+        //Arrange
+        send(false);
+        send(true);
+        send(false);
+
+        //Act
+        send(true);
+
+        //Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void openException_open_retryAfterIsTheRemainingOpenTime()
+    {
+        //Arrange
+        for (int i = 0; i < 4; i++)
+        {
+            send(true);
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(3500);
+
+        //Act
+        CircuitOpenException result = circuitBreaker.openException();
+
+        //Assert
+        assertEquals(Duration.ofSeconds(7), result.getRetryAfter());
+    }
+
+    @Test
+    public void tryAcquire_slowSends_opens()
+    {
+        //Act
+        for (int i = 0; i < 4; i++)
+        {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            permit.track(result);
+            now += TimeUnit.SECONDS.toNanos(3);
+            result.complete(null);
+        }
+
+        //Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void tryAcquire_openDurationOver_closesAfterSuccessfulTrialSends()
+    {
+        //Arrange
+        for (int i = 0; i < 4; i++)
+        {
+            send(true);
+        }
+        now += TimeUnit.SECONDS.toNanos(10);
+
+        //Act
+        CircuitBreaker.Permit first = circuitBreaker.tryAcquire();
+        CircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+        CircuitBreaker.Permit third = circuitBreaker.tryAcquire();
+        first.track(CompletableFuture.completedFuture(null));
+        second.track(CompletableFuture.completedFuture(null));
+
+        //Assert
+        assertNotNull(first);
+        assertNull(third);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void tryAcquire_trialSendFailed_opensAgain()
+    {
+        //Arrange
+        for (int i = 0; i < 4; i++)
+        {
+            send(true);
+        }
+        now += TimeUnit.SECONDS.toNanos(10);
+
+        //Act
+        send(true);
+
+        //Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    private void send(boolean fail)
+    {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        circuitBreaker.tryAcquire()
+                .track(result);
+        if (fail)
+        {
+            result.completeExceptionally(new IllegalStateException("broker down"));
+        }
+        else
+        {
+            result.complete(null);
+        }
+    }
+}
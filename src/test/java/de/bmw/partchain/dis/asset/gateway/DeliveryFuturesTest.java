@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaProducerException;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryFuturesTest
+{
+    @Test
+    public void isTransient_rejectedOrRetriableCause_true()
+    {
+        //Arrange
+        Throwable rejected = new CompletionException(new DeliveryRejectedException("no capacity"));
+        Throwable timeout = new KafkaProducerException(null, "send failed", new TimeoutException("expired"));
+
+        //Act
+        boolean rejectedResult = DeliveryFutures.isTransient(rejected);
+        boolean timeoutResult = DeliveryFutures.isTransient(timeout);
+
+        //Assert
+        assertTrue(rejectedResult);
+        assertTrue(timeoutResult);
+    }
+
+    @Test
+    public void isTransient_otherCause_false()
+    {
+        //Arrange
+        Throwable tooLarge = new KafkaProducerException(null, "send failed", new RecordTooLargeException("too large"));
+
+        //Act
+        boolean result = DeliveryFutures.isTransient(tooLarge);
+
+        //Assert
+        assertFalse(result);
+    }
+}
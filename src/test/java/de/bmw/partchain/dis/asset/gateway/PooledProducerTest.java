@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class PooledProducerTest
+{
+    private static final int SEND_BATCH_SIZE = 10000;
+
+    private final ExecutorService requests = Executors.newFixedThreadPool(2);
+    private PooledProducer producer;
+
+    @Before
+    public void setUp()
+    {
+        AssetDeliveryProperties deliveryProperties = new AssetDeliveryProperties();
+        producer = new PooledProducer(new DefaultKafkaProducerFactory<>(producerConfig()), PooledProducer.SHARED,
+                DeliveryMode.LEADER, deliveryProperties.getSharedProducer(),
+                deliveryProperties.maxInFlight(SEND_BATCH_SIZE), deliveryProperties.getTransaction(),
+                new SimpleMeterRegistry());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        requests.shutdownNow();
+        producer.destroy();
+    }
+
+    @Test
+    public void tryAcquire_twoConcurrentFullSendBatches_bothFit() throws Exception
+    {
+        //Arrange
+        Callable<Integer> request = () -> {
+            int acquired = 0;
+            for (int i = 0; i < SEND_BATCH_SIZE; i++)
+            {
+                if (producer.tryAcquire())
+                {
+                    acquired++;
+                }
+            }
+            return acquired;
+        };
+
+        //Act
+        List<Future<Integer>> results = requests.invokeAll(Arrays.asList(request, request));
+
+        //Assert
+        assertEquals(SEND_BATCH_SIZE, (int) results.get(0)
+                .get());
+        assertEquals(SEND_BATCH_SIZE, (int) results.get(1)
+                .get());
+    }
+
+    @Test
+    public void getKafkaTemplate_transactional_waitsForTheTransactionTimeoutInsteadOfMaxBlock() throws Exception
+    {
+        //Arrange
+        AssetDeliveryProperties deliveryProperties = new AssetDeliveryProperties();
+        deliveryProperties.getTransaction()
+                .setTimeout(Duration.ofSeconds(90));
+        Map<String, Object> configProps = producerConfig();
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000L);
+        PooledProducer transactional = new PooledProducer(new DefaultKafkaProducerFactory<>(configProps),
+                PooledProducer.SHARED, DeliveryMode.TRANSACTIONAL, deliveryProperties.getSharedProducer(),
+                deliveryProperties.maxInFlight(SEND_BATCH_SIZE), deliveryProperties.getTransaction(),
+                new SimpleMeterRegistry());
+
+        //Act
+        Map<String, Object> result = transactional.getKafkaTemplate()
+                .getProducerFactory()
+                .getConfigurationProperties();
+
+        //Assert
+        transactional.destroy();
+        assertEquals(90000L, result.get(ProducerConfig.MAX_BLOCK_MS_CONFIG));
+        assertEquals(90000, result.get(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG));
+    }
+
+    @Test
+    public void tryAcquire_beyondTheDefaultBatches_rejected()
+    {
+        //Arrange
+        for (int i = 0; i < 4 * SEND_BATCH_SIZE; i++)
+        {
+            producer.tryAcquire();
+        }
+
+        //Act
+        boolean result = producer.tryAcquire();
+
+        //Assert
+        assertFalse(result);
+    }
+
+    /**
+     * No send reaches the broker, acquiring capacity does not create a producer.
+     */
+    private static Map<String, Object> producerConfig()
+    {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return configProps;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parse throughput of JSON, Smile and CBOR requests; only run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+public class AssetJsonCodecBenchmark
+{
+    private final AssetJsonCodec codec = new AssetJsonCodec(false);
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Test
+    @SneakyThrows
+    public void createParser_benchmark_reportsParseThroughputPerFormat()
+    {
+        //Arrange
+        StringBuilder request = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++)
+        {
+            request.append(i == 0 ? "" : ",")
+                    .append(AssetJsonCodecTest.asset(i % 2 == 0 ? "SINGLE" : "BATCH", "OK"));
+        }
+        JsonNode tree = jsonMapper.readTree(request.append("]")
+                .toString());
+        byte[] json = jsonMapper.writeValueAsBytes(tree);
+        byte[] smile = smileMapper.writeValueAsBytes(tree);
+        byte[] cbor = cborMapper.writeValueAsBytes(tree);
+
+        //Act
+        double jsonThroughput = assetsPerSecond(MediaType.APPLICATION_JSON, json);
+        double smileThroughput = assetsPerSecond(AssetJsonCodec.APPLICATION_SMILE, smile);
+        double cborThroughput = assetsPerSecond(MediaType.APPLICATION_CBOR, cbor);
+
+        //Assert
+        log.info(String.format("assets/s (request bytes): json %.0f (%s), smile %.0f (%s), cbor %.0f (%s)",
+                jsonThroughput, json.length, smileThroughput, smile.length, cborThroughput, cbor.length));
+        assertTrue(smile.length < json.length);
+        assertTrue(cbor.length < json.length);
+    }
+
+    private double assetsPerSecond(MediaType contentType, byte[] request) throws Exception
+    {
+        int assets = AssetJsonCodecTest.readRequest(codec, contentType, request)
+                .size() / 2;
+        int rounds = 10;
+        for (int round = 0; round < rounds; round++)
+        {
+            AssetJsonCodecTest.readRequest(codec, contentType, request);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+        {
+            AssetJsonCodecTest.readRequest(codec, contentType, request);
+        }
+        return (double) assets * rounds * 1_000_000_000L / (System.nanoTime() - start);
+    }
+}
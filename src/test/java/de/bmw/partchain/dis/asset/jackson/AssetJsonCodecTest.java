@@ -0,0 +1,351 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.management.ThreadMXBean;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class AssetJsonCodecTest
+{
+    private static final List<String> REQUESTS = Arrays.asList(
+            "[]",
+            "[" + asset("SINGLE", "OK") + "," + asset("batch", "nok") + "]",
+            "[{\"somethingNew\": {\"nested\": [1, 2]}, \"manufacturer\": \"manufacturerValue\", \"status\": null}]",
+            "[{\"partNumberCustomer\": 12, \"partNameManufacturer\": 1.5e3, \"status\": true, " +
+                    "\"manufacturerLine\": 12345678901234567890, \"serialNumberType\": \"invalidValue\"}]",
+            "[{\"componentsSerialNumbers\": [\"a\", \"b\", \"a\", null], \"customFields\": {\"key\": 1, " +
+                    "\"other\": null}, \"qualityDocuments\": {}}]",
+            "[null, {}, [], \"text\", 42]",
+            "{\"first\": " + asset("SINGLE", "FLAG") + "}");
+
+    private final AssetJsonCodec codec = new AssetJsonCodec(false);
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Test
+    @SneakyThrows
+    public void createParser_smileRequests_sameAssetsAsJson()
+    {
+        for (String request : REQUESTS)
+        {
+            //Arrange
+            byte[] smile = smileMapper.writeValueAsBytes(jsonMapper.readTree(request));
+
+            //Act
+            List<Object> result = readRequest(codec, AssetJsonCodec.APPLICATION_SMILE, smile);
+
+            //Assert
+            assertEquals(request, readRequest(codec, MediaType.APPLICATION_JSON, request.getBytes()), result);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void createParser_cborRequests_sameAssetsAsJson()
+    {
+        for (String request : REQUESTS)
+        {
+            //Arrange
+            byte[] cbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(request));
+
+            //Act
+            List<Object> result = readRequest(codec, MediaType.APPLICATION_CBOR, cbor);
+
+            //Assert
+            assertEquals(request, readRequest(codec, MediaType.APPLICATION_JSON, request.getBytes()), result);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void createParser_unknownPropertyInSmile_warningKept()
+    {
+        //Arrange
+        byte[] smile = smileMapper.writeValueAsBytes(jsonMapper.readTree(REQUESTS.get(2)));
+
+        //Act
+        List<Object> result = readRequest(codec, AssetJsonCodec.APPLICATION_SMILE, smile);
+
+        //Assert
+        AssetRequestDto asset = (AssetRequestDto) result.get(1);
+        assertTrue(asset.getWarnings()
+                .contains("The property 'somethingNew' is not defined on the asset json schema"));
+    }
+
+    @Test
+    public void writeAssetBytes_randomAssets_sameBytesAsStringPath()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++)
+        {
+            //Arrange
+            Asset asset = randomAsset(random);
+
+            //Act
+            byte[] result = codec.writeAssetBytes(asset);
+
+            //Assert
+            assertArrayEquals(asset.toString(), codec.writeAsset(asset)
+                    .getBytes(StandardCharsets.UTF_8), result);
+        }
+    }
+
+    @Test
+    public void writeAssetIngestReportBytes_randomReports_sameBytesAsStringPath()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++)
+        {
+            //Arrange
+            AssetIngestReport report = new AssetIngestReport();
+            report.setRequestProcessId(randomText(random));
+            report.setRequestDate(new Date(random.nextLong()));
+            report.setJsonRequestAsset(randomText(random));
+            report.setFailReasons(Arrays.asList(randomText(random), randomText(random)));
+            report.setWarnings(random.nextBoolean() ? null : Collections.singletonList(randomText(random)));
+
+            //Act
+            byte[] result = codec.writeAssetIngestReportBytes(report);
+
+            //Assert
+            assertArrayEquals(codec.writeAssetIngestReport(report)
+                    .getBytes(StandardCharsets.UTF_8), result);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void writeAssetBodyBytes_typicalAsset_headerFieldsLeftOut()
+    {
+        //Arrange
+        Asset asset = typicalAsset(1);
+        JsonNode expected = new ObjectMapper().readTree(codec.writeAssetBytes(asset));
+        ((ObjectNode) expected).remove(
+                Arrays.asList("mspId", "requestProcessId", "requestDate", "qualityStatus"));
+
+        //Act
+        byte[] result = codec.writeAssetBodyBytes(asset);
+
+        //Assert
+        assertEquals(expected, new ObjectMapper().readTree(result));
+    }
+
+    @Test
+    public void writeAssetBytes_benchmark_reportsAllocatedBytesPerRecord()
+    {
+        //Arrange
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread()
+                .getId();
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            assets.add(typicalAsset(i));
+        }
+        StringSerializer stringSerializer = new StringSerializer();
+        int rounds = 20;
+        long sink = 0;
+        for (Asset asset : assets)
+        {
+            sink += stringSerializer.serialize("topic", codec.writeAsset(asset)).length;
+            sink += codec.writeAssetBytes(asset).length;
+        }
+
+        //Act
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int round = 0; round < rounds; round++)
+        {
+            for (Asset asset : assets)
+            {
+                sink += stringSerializer.serialize("topic", codec.writeAsset(asset)).length;
+            }
+        }
+        long stringPath = threads.getThreadAllocatedBytes(thread) - start;
+        start = threads.getThreadAllocatedBytes(thread);
+        for (int round = 0; round < rounds; round++)
+        {
+            for (Asset asset : assets)
+            {
+                sink += codec.writeAssetBytes(asset).length;
+            }
+        }
+        long bytePath = threads.getThreadAllocatedBytes(thread) - start;
+
+        //Assert
+        int records = rounds * assets.size();
+        log.info(String.format("allocated bytes/record: String + StringSerializer %s, byte[] %s (%s bytes written)",
+                stringPath / records, bytePath / records, sink));
+        assertTrue(bytePath < stringPath);
+    }
+
+    /**
+     * Reads the request like the controller does; shared with {@link AssetJsonCodecBenchmark}.
+     */
+    static List<Object> readRequest(AssetJsonCodec codec, MediaType contentType, byte[] request) throws Exception
+    {
+        List<Object> result = new ArrayList<>();
+        try (JsonParser parser = codec.createParser(contentType, new ByteArrayInputStream(request)))
+        {
+            AssetRequestStreamReader reader = new AssetRequestStreamReader(parser);
+            while (reader.nextElement())
+            {
+                JsonNode element = reader.readElement();
+                result.add(codec.writeTree(element));
+                result.add(codec.readAssetRequest(element));
+            }
+        }
+        return result;
+    }
+
+    private static Asset typicalAsset(int serialNumber)
+    {
+        Asset asset = new Asset();
+        asset.setRequestProcessId("b0f4e3d2-5a8c-4c1e-9d57-2f6a1c3e8b90");
+        asset.setRequestDate(new Date(1_600_000_000_000L + serialNumber));
+        asset.setManufacturer("manufacturerValue");
+        asset.setProductionCountryCodeManufacturer("DE");
+        asset.setPartNameManufacturer("partNameManufacturerValue");
+        asset.setPartNumberManufacturer("partNumberManufacturerValue");
+        asset.setPartNumberCustomer("partNumberCustomerValue");
+        asset.setSerialNumberManufacturer("serialNumberManufacturer" + serialNumber);
+        asset.setSerialNumberCustomer("serialNumberCustomer" + serialNumber);
+        asset.setQualityStatus(AssetQualityStatus.OK);
+        asset.setComponentsSerialNumbers(new HashSet<>(Arrays.asList("component1", "component2")));
+        asset.setStatus("statusValue");
+        asset.setProductionDateGmt("2000-01-01T00:00:00Z");
+        asset.setMspId("MSPID");
+        asset.setSerialNumberType(SerialNumberType.SINGLE);
+        asset.setManufacturerPlant("Werk M\u00fcnchen");
+        asset.setManufacturerLine("manufacturerLineValue");
+        asset.setCustomFields(Collections.singletonMap("customKey", "customValue"));
+        asset.setQualityDocuments(Collections.singletonMap("qualityKey", "qualityValue"));
+        return asset;
+    }
+
+    private static Asset randomAsset(Random random)
+    {
+        Asset asset = new Asset();
+        asset.setRequestProcessId(randomText(random));
+        asset.setRequestDate(new Date(random.nextLong()));
+        asset.setManufacturer(randomText(random));
+        asset.setProductionCountryCodeManufacturer(randomText(random));
+        asset.setPartNameManufacturer(randomText(random));
+        asset.setPartNumberManufacturer(randomText(random));
+        asset.setPartNumberCustomer(randomText(random));
+        asset.setSerialNumberManufacturer(randomText(random));
+        asset.setSerialNumberCustomer(random.nextBoolean() ? null : randomText(random));
+        asset.setQualityStatus(AssetQualityStatus.values()[random.nextInt(AssetQualityStatus.values().length)]);
+        asset.setComponentsSerialNumbers(new HashSet<>(Arrays.asList(randomText(random), randomText(random))));
+        asset.setStatus(randomText(random));
+        asset.setProductionDateGmt(randomText(random));
+        asset.setMspId(randomText(random));
+        asset.setSerialNumberType(SerialNumberType.values()[random.nextInt(SerialNumberType.values().length)]);
+        asset.setManufacturerPlant(randomText(random));
+        asset.setManufacturerLine(randomText(random));
+        asset.setCustomFields(Collections.singletonMap(randomText(random), randomText(random)));
+        asset.setQualityDocuments(random.nextBoolean() ? null : Collections.singletonMap(randomText(random), null));
+        return asset;
+    }
+
+    /**
+     * Mostly ASCII, with some escapes, multi-byte characters, surrogate pairs and unpaired surrogates mixed in.
+     */
+    private static String randomText(Random random)
+    {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; i++)
+        {
+            int kind = random.nextInt(100);
+            if (kind < 80)
+            {
+                text.append((char) (' ' + random.nextInt(95)));
+            }
+            else if (kind < 85)
+            {
+                text.append("\\\"\n\u0001\\uD800".charAt(random.nextInt(10)));
+            }
+            else if (kind < 93)
+            {
+                text.append((char) (0x80 + random.nextInt(0xD800 - 0x80)));
+            }
+            else if (kind < 98)
+            {
+                text.appendCodePoint(0x10000 + random.nextInt(0x100000));
+            }
+            else
+            {
+                text.append((char) (0xD800 + random.nextInt(0x800)));
+            }
+        }
+        return text.toString();
+    }
+
+    static String asset(String serialNumberType, String qualityStatus)
+    {
+        return "{\"manufacturer\": \"manufacturerValue\"," +
+                "\"partNameManufacturer\": \"partNameManufacturerValue\"," +
+                "\"partNumberCustomer\": \"partNumberCustomerValue\"," +
+                "\"partNumberManufacturer\": \"partNumberManufacturerValue\"," +
+                "\"serialNumberManufacturer\": \"serialNumberManufacturerValue\"," +
+                "\"serialNumberCustomer\": \"serialNumberCustomerValue\"," +
+                "\"status\": \"statusValue\"," +
+                "\"serialNumberType\": \"" + serialNumberType + "\"," +
+                "\"qualityStatus\": \"" + qualityStatus + "\"," +
+                "\"productionDateGmt\": \"2000-01-01T00:00:00Z\"," +
+                "\"productionCountryCodeManufacturer\": \"DE\"," +
+                "\"manufacturerPlant\": \"manufacturerPlantValue\"," +
+                "\"manufacturerLine\": \"manufacturerLineValue\"," +
+                "\"componentsSerialNumbers\": [\"component1\", \"component2\"]," +
+                "\"customFields\": {\"customKey\": \"customValue\"}," +
+                "\"qualityDocuments\": {\"qualityKey\": \"qualityValue\"}}";
+    }
+}
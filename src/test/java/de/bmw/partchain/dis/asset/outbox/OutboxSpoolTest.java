@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.outbox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutboxSpoolTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private OutboxSpool spool;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        directory = folder.getRoot()
+                .toPath();
+        spool = new OutboxSpool(directory, 1024, Duration.ofMillis(1));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        spool.close();
+    }
+
+    @Test
+    public void read_recordsOfSeveralSegments_readInOrder()
+    {
+        //Arrange
+        append(spool, 0, 100);
+
+        //Act
+        List<String> result = readAll(spool);
+
+        //Assert
+        assertEquals(100, result.size());
+        assertEquals("record-0", result.get(0));
+        assertEquals("record-99", result.get(99));
+    }
+
+    @Test
+    public void read_afterRestart_replaysRecordsNotCommitted() throws Exception
+    {
+        //Arrange
+        append(spool, 0, 100);
+        OutboxSpool.Batch committed = spool.read(spool.getCheckpoint(), 30);
+        spool.commit(committed.getEnd());
+
+        //Act
+        OutboxSpool restarted = new OutboxSpool(directory, 1024, Duration.ofMillis(1));
+        append(restarted, 100, 10);
+        List<String> result = readAll(restarted);
+        restarted.close();
+
+        //Assert
+        assertEquals(80, result.size());
+        assertEquals("record-30", result.get(0));
+        assertEquals("record-109", result.get(79));
+    }
+
+    @Test
+    public void commit_allRecordsRead_drainedSegmentsDeleted() throws Exception
+    {
+        //Arrange
+        append(spool, 0, 100);
+        OutboxSpool.Batch batch = spool.read(spool.getCheckpoint(), 100);
+
+        //Act
+        spool.commit(batch.getEnd());
+
+        //Assert
+        assertEquals(0, spool.backlogBytes());
+        assertEquals(1, folder.getRoot()
+                .list((dir, name) -> name.endsWith(".segment")).length);
+    }
+
+    private static void append(OutboxSpool spool, int first, int count)
+    {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = first; i < first + count; i++)
+        {
+            results.add(spool.append(("record-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        results.forEach(CompletableFuture::join);
+    }
+
+    private static List<String> readAll(OutboxSpool spool)
+    {
+        List<String> records = new ArrayList<>();
+        OutboxSpool.Position position = spool.getCheckpoint();
+        OutboxSpool.Batch batch;
+        while (!(batch = spool.read(position, 7)).getEnd()
+                .equals(position))
+        {
+            batch.getRecords()
+                    .forEach(record -> records.add(new String(record, StandardCharsets.UTF_8)));
+            position = batch.getEnd();
+        }
+        return records;
+    }
+}
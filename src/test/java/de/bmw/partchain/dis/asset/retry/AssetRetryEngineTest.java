@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import de.bmw.partchain.dis.config.AssetRetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class AssetRetryEngineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AssetJsonCodec codec = new AssetJsonCodec(false);
+    private final List<Integer> gatewayCalls = new ArrayList<>();
+    private AssetGateway gateway;
+    private String deadLetterFile;
+    private AssetRetryEngine engine;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        deadLetterFile = new File(folder.getRoot(), "dead-letters/assets.ndjson").getPath();
+        AssetRetryProperties properties = new AssetRetryProperties();
+        properties.setEnabled(true);
+        properties.setDeadLetterFile(deadLetterFile);
+        DeadLetterStore store = new DeadLetterStore(deadLetterFile);
+        for (int i = 0; i < 7; i++)
+        {
+            store.append(codec.writeAssetBytes(asset("serial" + i)));
+        }
+        engine = new AssetRetryEngine(assets -> gateway.sendToLedger(assets), codec, new AssetDeliveryProperties(),
+                properties, new SimpleMeterRegistry(), 3);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        engine.destroy();
+    }
+
+    @Test
+    public void replayDeadLetters_moreThanOneSendBatch_sentOneSendBatchAtATime() throws Exception
+    {
+        //Arrange
+        gateway = assets -> {
+            gatewayCalls.add(assets.size());
+            return new ArrayList<>(Collections.nCopies(assets.size(), CompletableFuture.completedFuture(null)));
+        };
+
+        //Act
+        int result = engine.replayDeadLetters();
+
+        //Assert
+        assertEquals(7, result);
+        assertEquals("[3, 3, 1]", gatewayCalls.toString());
+        assertEquals(0, engine.getDeadLetterDepth());
+    }
+
+    @Test
+    public void replayDeadLetters_deadLetterFileFails_replayingFileKept() throws Exception
+    {
+        //Arrange
+        gateway = assets -> {
+            // the dead-letter file cannot be created once a directory is in its place
+            new File(deadLetterFile).mkdirs();
+            return new ArrayList<>(Collections.nCopies(assets.size(),
+                    DeliveryFutures.failed(new IllegalStateException("still failing"))));
+        };
+
+        //Act
+        IOException result = null;
+        try
+        {
+            engine.replayDeadLetters();
+        }
+        catch (IOException e)
+        {
+            result = e;
+        }
+
+        //Assert
+        assertNotNull(result);
+        assertEquals(7, Files.readAllLines(Paths.get(deadLetterFile + ".replaying"), StandardCharsets.UTF_8)
+                .size());
+    }
+
+    private static Asset asset(String serialNumberManufacturer)
+    {
+        Asset asset = new Asset();
+        asset.setMspId("BMW");
+        asset.setRequestProcessId("b0f4e3d2-5a8c-4c1e-9d57-2f6a1c3e8b90");
+        asset.setSerialNumberManufacturer(serialNumberManufacturer);
+        return asset;
+    }
+}
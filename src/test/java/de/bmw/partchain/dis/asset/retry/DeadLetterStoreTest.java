@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadLetterStoreTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replay_recordFailingAgain_keptForNextReplay() throws Exception
+    {
+        //Arrange
+        String file = new File(folder.getRoot(), "dead-letters/assets.ndjson").getPath();
+        DeadLetterStore store = new DeadLetterStore(file);
+        store.append(bytes("first"));
+        store.append(bytes("second"));
+        List<String> replayed = new ArrayList<>();
+
+        //Act
+        int result = store.replay(records -> {
+            for (byte[] record : records)
+            {
+                replayed.add(new String(record, StandardCharsets.UTF_8));
+            }
+            store.append(records.get(1));
+        });
+
+        //Assert
+        assertEquals(2, result);
+        assertEquals("[first, second]", replayed.toString());
+        assertEquals(1, store.depth());
+        assertEquals(1, new DeadLetterStore(file).depth());
+    }
+
+    @Test
+    public void quarantine_unreadableRecord_keptApartAndNotReplayed() throws Exception
+    {
+        //Arrange
+        String file = new File(folder.getRoot(), "dead-letters/assets.ndjson").getPath();
+        DeadLetterStore store = new DeadLetterStore(file);
+        store.append(bytes("first"));
+
+        //Act
+        store.quarantine(bytes("{broken"));
+
+        //Assert
+        assertEquals(1, store.depth());
+        assertEquals(1, store.replay(records -> {
+        }));
+        assertEquals(Collections.singletonList("{broken"), Files.readAllLines(Paths.get(file + ".unreadable"),
+                StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String record)
+    {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+}
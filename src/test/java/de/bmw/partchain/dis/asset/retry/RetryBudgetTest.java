@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.retry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RetryBudgetTest
+{
+    @Test
+    public void tryWithdraw_reserveUsedUp_allowsBudgetPercentOfSends()
+    {
+        //Arrange
+        RetryBudget budget = new RetryBudget(10, 20);
+        int reserve = withdrawAll(budget);
+
+        //Act
+        budget.deposit(100);
+        int result = withdrawAll(budget);
+
+        //Assert
+        assertEquals(20, reserve);
+        assertEquals(10, result);
+    }
+
+    @Test
+    public void deposit_quietPeriod_savesUpNoMoreThanReserve()
+    {
+        //Arrange
+        RetryBudget budget = new RetryBudget(10, 5);
+
+        //Act
+        budget.deposit(1000);
+
+        //Assert
+        assertEquals(5, withdrawAll(budget));
+    }
+
+    private static int withdrawAll(RetryBudget budget)
+    {
+        int retries = 0;
+        while (budget.tryWithdraw())
+        {
+            retries++;
+        }
+        return retries;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestFailureGroup;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestSummary;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AssetIngestReportServiceTest
+{
+    @Test
+    public void summarize_manyFailedAssets_groupedByReasonWithBoundedSamples()
+    {
+        //Arrange
+        SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
+        responseDto.setMspId("MSPID");
+        for (int i = 0; i < 50_000; i++)
+        {
+            responseDto.addFailedAsset(i, "{\"index\":" + i + "}", AssetFailType.VALIDATION,
+                    i % 2 == 0 ? Arrays.asList("manufacturer is missing", "serialNumberType is invalid") :
+                            Collections.singletonList("manufacturer is missing"),
+                    new HashSet<>(Collections.singletonList("unknown field")));
+        }
+        responseDto.addFailedAsset(50_000, "{}", AssetFailType.OTHER, Collections.singletonList("broker down"));
+
+        //Act
+        AssetIngestSummary result = AssetIngestReportService.summarize(responseDto, 10);
+
+        //Assert
+        assertEquals(50_001, result.getFailedAssets());
+        assertEquals("MSPID", result.getMspId());
+        assertEquals(4, result.getFailures()
+                .size());
+        AssetIngestFailureGroup missing = result.getFailures()
+                .get(0);
+        assertEquals("manufacturer is missing", missing.getReason());
+        assertFalse(missing.isWarning());
+        assertEquals(50_000, missing.getCount());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), missing.getSampleIndexes());
+        assertEquals("{\"index\":0}", missing.getSampleAssets()
+                .get(0));
+        assertEquals(25_000, result.getFailures()
+                .get(1)
+                .getCount());
+        assertTrue(result.getFailures()
+                .get(2)
+                .isWarning());
+        assertEquals(AssetFailType.OTHER, result.getFailures()
+                .get(3)
+                .getFailType());
+    }
+}
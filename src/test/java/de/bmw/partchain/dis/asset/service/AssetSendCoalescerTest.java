@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.DeliveryFutures;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.config.AssetDeliveryProperties;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AssetSendCoalescerTest
+{
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AssetGateway gateway = new AssetGateway()
+    {
+        @Override
+        public List<CompletableFuture<Void>> sendToLedger(List<Asset> assets)
+        {
+            batchSizes.add(assets.size());
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>(assets.size());
+            for (Asset asset : assets)
+            {
+                deliveries.add("fail".equals(asset.getSerialNumberManufacturer())
+                        ? DeliveryFutures.failed(new IllegalStateException("fail"))
+                        : CompletableFuture.completedFuture(null));
+            }
+            return deliveries;
+        }
+    };
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private AssetSendCoalescer coalescer;
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        coalescer.destroy();
+    }
+
+    @Test
+    public void send_concurrentSmallRequests_mergedIntoOneBatch() throws Exception
+    {
+        //Arrange
+        coalescer = new AssetSendCoalescer(gateway, new AssetDeliveryProperties(), true, 500, 1000);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<CompletableFuture<Void>>>> requests = new ArrayList<>();
+        for (int request = 0; request < 4; request++)
+        {
+            int failedIndex = request;
+            requests.add(executor.submit(() -> {
+                start.await();
+                return coalescer.send(assets("MSPID", 5, failedIndex));
+            }));
+        }
+
+        //Act
+        start.countDown();
+
+        //Assert
+        for (int request = 0; request < 4; request++)
+        {
+            List<CompletableFuture<Void>> deliveries = requests.get(request)
+                    .get();
+            assertEquals(5, deliveries.size());
+            for (int i = 0; i < deliveries.size(); i++)
+            {
+                assertEquals(i == request, DeliveryFutures.failure(deliveries.get(i)) != null);
+            }
+        }
+        assertEquals(Collections.singletonList(20), batchSizes);
+    }
+
+    @Test
+    public void send_maxBatchSizeReached_sentWithoutLinger()
+    {
+        //Arrange
+        coalescer = new AssetSendCoalescer(gateway, new AssetDeliveryProperties(), true, 60_000, 10);
+
+        //Act
+        List<CompletableFuture<Void>> first = coalescer.send(assets("MSPID", 6, -1));
+        List<CompletableFuture<Void>> second = coalescer.send(assets("MSPID", 4, -1));
+
+        //Assert
+        assertNull(DeliveryFutures.failure(first.get(0)));
+        assertNull(DeliveryFutures.failure(second.get(3)));
+        assertEquals(Collections.singletonList(10), batchSizes);
+    }
+
+    @Test
+    public void send_disabled_sentAsIs()
+    {
+        //Arrange
+        coalescer = new AssetSendCoalescer(gateway, new AssetDeliveryProperties(), false, 5, 1000);
+
+        //Act
+        List<CompletableFuture<Void>> result = coalescer.send(assets("MSPID", 3, 1));
+
+        //Assert
+        assertNull(DeliveryFutures.failure(result.get(0)));
+        assertEquals("fail", DeliveryFutures.failureMessage(result.get(1)));
+        assertEquals(Collections.singletonList(3), batchSizes);
+    }
+
+    private static List<Asset> assets(String mspId, int count, int failedIndex)
+    {
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            Asset asset = new Asset();
+            asset.setMspId(mspId);
+            asset.setSerialNumberManufacturer(i == failedIndex ? "fail" : "serial" + i);
+            assets.add(asset);
+        }
+        return assets;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrderedChunkProcessorTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void finish_workersFinishOutOfOrder_resultsInAddOrder()
+    {
+        //Arrange
+        List<Integer> results = new ArrayList<>();
+        OrderedChunkProcessor<String, Integer> processor = new OrderedChunkProcessor<>(executor, 7, 8,
+                (index, item) -> {
+                    LockSupport.parkNanos(ThreadLocalRandom.current()
+                            .nextInt(100_000));
+                    return index;
+                }, results::add);
+
+        //Act
+        for (int i = 0; i < 1000; i++)
+        {
+            processor.add(i, "item" + i);
+        }
+        processor.finish();
+
+        //Assert
+        assertEquals(IntStream.range(0, 1000)
+                .boxed()
+                .collect(Collectors.toList()), results);
+    }
+
+    @Test
+    public void add_withoutExecutor_processedOnCallingThread()
+    {
+        //Arrange
+        List<String> results = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+        OrderedChunkProcessor<String, String> processor = new OrderedChunkProcessor<>(null, 7, 8,
+                (index, item) -> Thread.currentThread() == caller ? item : "other thread", results::add);
+
+        //Act
+        processor.add(0, "first");
+        processor.add(1, "second");
+
+        //Assert
+        assertEquals(2, results.size());
+        assertEquals("first", results.get(0));
+        assertEquals("second", results.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void finish_workFails_exceptionRethrown()
+    {
+        //Arrange
+        OrderedChunkProcessor<String, String> processor = new OrderedChunkProcessor<>(executor, 7, 8,
+                (index, item) -> {
+                    throw new IllegalArgumentException(item);
+                }, result -> {
+                });
+        processor.add(0, "item");
+
+        //Act
+        processor.finish();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.validator;
+
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput of the validation engine against bean validation; only run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+public class AssetRequestValidatorBenchmark
+{
+    private final AssetRequestValidator validator = new AssetRequestValidator();
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory()
+            .getValidator();
+
+    @Test
+    public void validate_benchmark_reportsValidationsPerSecond()
+    {
+        //Arrange
+        Random random = new Random(7);
+        List<AssetRequestDto> assets = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            assets.add(AssetRequestValidatorTest.createRandomRequestDto(random));
+        }
+
+        //Act
+        double engine = validationsPerSecond(assets, 50, validator::validate);
+        double cachedBeanValidation = validationsPerSecond(assets, 5, this::beanValidationMessages);
+        double beanValidationPerAsset = validationsPerSecond(assets.subList(0, 100), 1,
+                asset -> Validation.buildDefaultValidatorFactory()
+                        .getValidator()
+                        .validate(asset));
+
+        //Assert
+        log.info(String.format("validations/s: engine %.0f, shared bean validator %.0f, " +
+                "validator factory per asset %.0f", engine, cachedBeanValidation, beanValidationPerAsset));
+        assertEquals(beanValidationMessages(assets.get(0)), new HashSet<>(validator.validate(assets.get(0))));
+    }
+
+    private double validationsPerSecond(List<AssetRequestDto> assets, int rounds,
+                                        Consumer<AssetRequestDto> validation)
+    {
+        assets.forEach(validation);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+        {
+            assets.forEach(validation);
+        }
+        return (double) assets.size() * rounds * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private Set<String> beanValidationMessages(AssetRequestDto asset)
+    {
+        return beanValidator.validate(asset)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.validator;
+
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.model.request.AssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class AssetRequestValidatorTest
+{
+    private static final String[] DATES = {"2000-01-01T00:00:00Z", null, "2000-13-01T00:00:00Z", "01.01.2000",
+            "2020-02-29T23:59:59.999+01:00"};
+    private static final String[] COUNTRY_CODES = {"DE", null, "XX", "de", "DEU", ""};
+
+    private AssetRequestValidator validator;
+    private Validator beanValidator;
+    private Random random;
+
+    @Before
+    public void setUp()
+    {
+        validator = new AssetRequestValidator();
+        beanValidator = Validation.buildDefaultValidatorFactory()
+                .getValidator();
+        random = new Random(7);
+    }
+
+    @Test
+    public void validate_validAsset_noFailReasons()
+    {
+        //Arrange
+        AssetRequestDto asset = createRequestDto();
+
+        //Act
+        List<String> result = validator.validate(asset);
+
+        //Assert
+        assertEquals(Collections.emptyList(), result);
+    }
+
+    @Test
+    public void validate_allConstrainedFieldsNull_messagesOrderedByFieldName()
+    {
+        //Arrange
+        AssetRequestDto asset = new AssetRequestDto();
+
+        //Act
+        List<String> result = validator.validate(asset);
+
+        //Assert
+        assertEquals(Arrays.asList(
+                "manufacturer is a mandatory property therefore can not be null",
+                "partNameManufacturer is a mandatory property therefore can not be null",
+                "partNumberCustomer is a mandatory property therefore can not be null",
+                "partNumberManufacturer is a mandatory property therefore can not be null",
+                "productionCountryCodeManufacturer is a mandatory property therefore can not be null",
+                "productionCountryCodeManufacturer is not a valid ISO 3166-1 Alpha 2",
+                "productionDateGmt is a mandatory property therefore can not be null",
+                "productionDateGmt is not a valid GMT date. The expected format is YYYY-MM-DDTHH:mm:SSZ",
+                "qualityStatus null or with unrecognizable value. Must be OK, NOK or FLAG",
+                "serialNumberCustomer is a mandatory property therefore can not be null",
+                "serialNumberManufacturer is a mandatory property therefore can not be null",
+                "serialNumberType null or with unrecognizable value. Must be SINGLE or BATCH",
+                "status is a mandatory property therefore can not be null"), result);
+    }
+
+    @Test
+    public void validate_randomAssets_sameMessagesAsBeanValidation()
+    {
+        for (int i = 0; i < 2000; i++)
+        {
+            //Arrange
+            AssetRequestDto asset = createRandomRequestDto(random);
+
+            //Act
+            List<String> result = validator.validate(asset);
+
+            //Assert
+            assertEquals(asset.toString(), beanValidationMessages(asset), new HashSet<>(result));
+            assertEquals(result.size(), new HashSet<>(result).size());
+            assertEquals(result, validator.validate(asset));
+        }
+    }
+
+    private Set<String> beanValidationMessages(AssetRequestDto asset)
+    {
+        return beanValidator.validate(asset)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * A valid asset with some of its constrained fields left out or set to invalid values; shared with
+     * {@link AssetRequestValidatorBenchmark}.
+     */
+    static AssetRequestDto createRandomRequestDto(Random random)
+    {
+        AssetRequestDto asset = createRequestDto();
+        asset.setManufacturer(maybeNull(random, asset.getManufacturer()));
+        asset.setPartNameManufacturer(maybeNull(random, asset.getPartNameManufacturer()));
+        asset.setPartNumberCustomer(maybeNull(random, asset.getPartNumberCustomer()));
+        asset.setPartNumberManufacturer(maybeNull(random, asset.getPartNumberManufacturer()));
+        asset.setSerialNumberManufacturer(maybeNull(random, asset.getSerialNumberManufacturer()));
+        asset.setSerialNumberCustomer(maybeNull(random, asset.getSerialNumberCustomer()));
+        asset.setStatus(maybeNull(random, asset.getStatus()));
+        asset.setSerialNumberType(maybeNull(random, asset.getSerialNumberType()));
+        asset.setQualityStatus(maybeNull(random, asset.getQualityStatus()));
+        asset.setProductionDateGmt(DATES[random.nextInt(DATES.length)]);
+        asset.setProductionCountryCodeManufacturer(COUNTRY_CODES[random.nextInt(COUNTRY_CODES.length)]);
+        return asset;
+    }
+
+    private static <T> T maybeNull(Random random, T value)
+    {
+        return random.nextInt(4) == 0 ? null : value;
+    }
+
+    private static AssetRequestDto createRequestDto()
+    {
+        AssetRequestDto assetRequestDto = new AssetRequestDto();
+        assetRequestDto.setManufacturer("manufacturer");
+        assetRequestDto.setPartNameManufacturer("partNameManufacturer");
+        assetRequestDto.setPartNumberCustomer("partNumberCustomer");
+        assetRequestDto.setPartNumberManufacturer("partNumberManufacturer");
+        assetRequestDto.setSerialNumberManufacturer("serialNumberManufacturer");
+        assetRequestDto.setSerialNumberCustomer("serialNumberCustomer");
+        assetRequestDto.setStatus("status");
+        assetRequestDto.setSerialNumberType(SerialNumberType.SINGLE);
+        assetRequestDto.setQualityStatus(AssetQualityStatus.OK);
+        assetRequestDto.setProductionDateGmt("2000-01-01T00:00:00Z");
+        assetRequestDto.setProductionCountryCodeManufacturer("DE");
+        assetRequestDto.setComponentsSerialNumbers(new HashSet<>());
+        assetRequestDto.setCustomFields(new HashMap<>());
+        assetRequestDto.setQualityDocuments(new HashMap<>());
+        return assetRequestDto;
+    }
+}
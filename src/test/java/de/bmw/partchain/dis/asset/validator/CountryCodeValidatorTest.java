@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.validator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CountryCodeValidatorTest
+{
+    private final CountryCodeValidator validator = new CountryCodeValidator();
+    private final Set<String> isoCountries = Arrays.stream(Locale.getISOCountries())
+            .collect(Collectors.toSet());
+
+    @Test
+    public void isValid_null_false()
+    {
+        //Act
+        boolean result = validator.isValid(null, null);
+
+        //Assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void isValid_everyTwoCharCode_sameAsIsoCountries()
+    {
+        for (char first = 0; first < 0x250; first++)
+        {
+            for (char second = 0; second < 0x250; second++)
+            {
+                //Arrange
+                String countryCode = new String(new char[]{first, second});
+
+                //Act
+                boolean result = validator.isValid(countryCode, null);
+
+                //Assert
+                assertEquals(countryCode, isoCountries.contains(countryCode), result);
+            }
+        }
+    }
+
+    @Test
+    public void isValid_otherLengths_sameAsIsoCountries()
+    {
+        for (String countryCode : Arrays.asList("", "D", "DEU", "DE ", " DE", "USA", "DEDE"))
+        {
+            //Act
+            boolean result = validator.isValid(countryCode, null);
+
+            //Assert
+            assertEquals(countryCode, isoCountries.contains(countryCode), result);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.validator;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DateGmtValidatorTest
+{
+    private static final String[] SEEDS = {
+            "2000-01-01T00:00:00Z",
+            "2020-02-29T23:59:59.123456789+18:00",
+            "-0001-12-31T10:15-05:30:15",
+            "+10000-06-30t12:00:00.z",
+            "1999-02-28T00:00+01",
+            "+999999999-12-31T23:59:59.999999999-18:00",
+            "-999999999-01-01T00:00:00Z",
+            "2000-01-01T00:00:00.Z"};
+    private static final String ALPHABET = "0123456789-+:.TtZz x";
+
+    private final DateGmtValidator validator = new DateGmtValidator();
+
+    @Test
+    public void isValid_null_false()
+    {
+        //Act
+        boolean result = validator.isValid(null, null);
+
+        //Assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void isValid_expectedFormat_true()
+    {
+        //Act
+        boolean result = validator.isValid("2000-01-01T00:00:00Z", null);
+
+        //Assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void isValid_everyDayOfMonth_sameAsIsoOffsetDateTime()
+    {
+        for (int year : new int[]{0, 1, 4, 100, 400, 1900, 2000, 2001, 2024, 9999})
+        {
+            for (int month = 0; month <= 13; month++)
+            {
+                for (int day = 0; day <= 32; day++)
+                {
+                    assertSameAsIsoOffsetDateTime(String.format("%04d-%02d-%02dT00:00Z", year, month, day));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void isValid_everyTimeAndOffset_sameAsIsoOffsetDateTime()
+    {
+        for (int hour = 0; hour <= 60; hour++)
+        {
+            for (int minute = 0; minute <= 60; minute++)
+            {
+                assertSameAsIsoOffsetDateTime(String.format("2000-01-01T%02d:%02d:%02dZ", hour, minute, minute));
+                assertSameAsIsoOffsetDateTime(String.format("2000-01-01T00:00+%02d:%02d", hour, minute));
+                assertSameAsIsoOffsetDateTime(String.format("2000-01-01T00:00-%02d:%02d:%02d", hour, minute,
+                        (hour * 7) % 61));
+            }
+            assertSameAsIsoOffsetDateTime(String.format("2000-01-01T00:00+%02d", hour));
+        }
+    }
+
+    @Test
+    public void isValid_singleCharacterMutations_sameAsIsoOffsetDateTime()
+    {
+        for (String seed : SEEDS)
+        {
+            assertSameAsIsoOffsetDateTime(seed);
+            for (int i = 0; i < seed.length(); i++)
+            {
+                for (char c : ALPHABET.toCharArray())
+                {
+                    assertSameAsIsoOffsetDateTime(seed.substring(0, i) + c + seed.substring(i + 1));
+                    assertSameAsIsoOffsetDateTime(seed.substring(0, i) + c + seed.substring(i));
+                }
+                assertSameAsIsoOffsetDateTime(seed.substring(0, i) + seed.substring(i + 1));
+                assertSameAsIsoOffsetDateTime(seed.substring(0, i));
+            }
+        }
+    }
+
+    @Test
+    public void isValid_randomMutations_sameAsIsoOffsetDateTime()
+    {
+        Random random = new Random(1);
+        for (int i = 0; i < 200_000; i++)
+        {
+            StringBuilder text = new StringBuilder(SEEDS[random.nextInt(SEEDS.length)]);
+            for (int mutations = 1 + random.nextInt(4); mutations > 0; mutations--)
+            {
+                int position = random.nextInt(text.length() + 1);
+                char c = random.nextInt(10) == 0 ? (char) random.nextInt(0x3000) :
+                        ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                int operation = random.nextInt(3);
+                if (operation == 0 && position < text.length())
+                {
+                    text.setCharAt(position, c);
+                }
+                else if (operation == 1)
+                {
+                    text.insert(position, c);
+                }
+                else if (position < text.length())
+                {
+                    text.deleteCharAt(position);
+                }
+            }
+            assertSameAsIsoOffsetDateTime(text.toString());
+        }
+    }
+
+    private void assertSameAsIsoOffsetDateTime(String text)
+    {
+        boolean expected;
+        try
+        {
+            LocalDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            expected = true;
+        }
+        catch (DateTimeParseException e)
+        {
+            expected = false;
+        }
+
+        assertEquals(text, expected, validator.isValid(text, null));
+    }
+}
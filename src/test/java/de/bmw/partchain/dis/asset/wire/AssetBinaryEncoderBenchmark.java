@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Record size and encode throughput of the binary encoding against JSON; only run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+public class AssetBinaryEncoderBenchmark
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void encode_benchmark_reportsSizeAndThroughputAgainstJson()
+    {
+        //Arrange
+        AssetJsonCodec codec = new AssetJsonCodec(false);
+        AssetBinaryEncoder encoder = new AssetBinaryEncoder(new FileSchemaRegistry(folder.getRoot()
+                .getPath()));
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            assets.add(AssetBinaryEncoderTest.typicalAsset(i, i % 10 == 0 ? 2000 : 20));
+        }
+
+        //Act
+        long[] json = measure(assets, codec::writeAssetBytes);
+        long[] binary = measure(assets, encoder::encode);
+
+        //Assert
+        log.info(String.format("bytes/asset (assets/s): json %s (%.0f), binary %s (%.0f)",
+                json[0] / assets.size(), assetsPerSecond(assets, json[1]), binary[0] / assets.size(),
+                assetsPerSecond(assets, binary[1])));
+        assertTrue(binary[0] * 2 < json[0]);
+    }
+
+    /**
+     * Encodes the assets a few rounds to warm up and returns the bytes per round and the nanoseconds per round.
+     */
+    private static long[] measure(List<Asset> assets, Function<Asset, byte[]> encode)
+    {
+        long bytes = 0;
+        for (Asset asset : assets)
+        {
+            bytes += encode.apply(asset).length;
+        }
+        int rounds = 20;
+        for (int round = 0; round < rounds; round++)
+        {
+            assets.forEach(encode::apply);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+        {
+            assets.forEach(encode::apply);
+        }
+        return new long[]{bytes, (System.nanoTime() - start) / rounds};
+    }
+
+    private static double assetsPerSecond(List<Asset> assets, long nanos)
+    {
+        return (double) assets.size() * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AssetBinaryEncoderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSchemaRegistry schemaRegistry;
+    private AssetBinaryEncoder encoder;
+
+    @Before
+    public void setUp()
+    {
+        schemaRegistry = new FileSchemaRegistry(folder.getRoot()
+                .getPath());
+        encoder = new AssetBinaryEncoder(schemaRegistry);
+    }
+
+    @Test
+    public void encode_typicalAsset_decodesToSameAsset()
+    {
+        //Arrange
+        Asset asset = typicalAsset(1, 1000);
+
+        //Act
+        byte[] result = encoder.encode(asset);
+
+        //Assert
+        assertEquals(asset, decode(result));
+    }
+
+    @Test
+    public void encode_edgeCases_decodesToSameAsset()
+    {
+        //Arrange
+        Asset asset = new Asset();
+        asset.setComponentsSerialNumbers(new HashSet<>(Arrays.asList(null, "", "a", "ab", "ab\uD83D\uDE00",
+                "ab\uD83D\uDE01", "b")));
+        asset.setCustomFields(Collections.singletonMap("key", null));
+        asset.setQualityDocuments(Collections.emptyMap());
+
+        //Act
+        byte[] result = encoder.encode(asset);
+
+        //Assert
+        assertEquals(asset, decode(result));
+    }
+
+    @Test
+    public void encode_schema_registeredOnce()
+    {
+        //Arrange
+        encoder.encode(new Asset());
+
+        //Act
+        int result = schemaRegistry.register(AssetBinaryEncoder.SUBJECT, encoder.getSchema());
+
+        //Assert
+        assertEquals(1, result);
+        assertEquals(encoder.getSchema(), schemaRegistry.schema(result));
+        assertNotEquals(result, schemaRegistry.register(AssetBinaryEncoder.SUBJECT, "{}"));
+    }
+
+    @Test
+    public void getSchema_enumSymbols_matchEnumOrder()
+    {
+        //Assert
+        assertTrue(encoder.getSchema()
+                .contains(symbols(AssetQualityStatus.values())));
+        assertTrue(encoder.getSchema()
+                .contains(symbols(SerialNumberType.values())));
+    }
+
+    private static String symbols(Enum<?>[] constants)
+    {
+        StringBuilder symbols = new StringBuilder("\"symbols\": [");
+        for (int i = 0; i < constants.length; i++)
+        {
+            symbols.append(i == 0 ? "" : ", ")
+                    .append('"')
+                    .append(constants[i].name())
+                    .append('"');
+        }
+        return symbols.append(']')
+                .toString();
+    }
+
+    static Asset typicalAsset(int serialNumber, int components)
+    {
+        Asset asset = new Asset();
+        asset.setRequestProcessId("b0f4e3d2-5a8c-4c1e-9d57-2f6a1c3e8b90");
+        asset.setRequestDate(new Date(1_600_000_000_000L + serialNumber));
+        asset.setManufacturer("manufacturerValue");
+        asset.setProductionCountryCodeManufacturer("DE");
+        asset.setPartNameManufacturer("partNameManufacturerValue");
+        asset.setPartNumberManufacturer("partNumberManufacturerValue");
+        asset.setPartNumberCustomer("partNumberCustomerValue");
+        asset.setSerialNumberManufacturer("serialNumberManufacturer" + serialNumber);
+        asset.setSerialNumberCustomer("serialNumberCustomer" + serialNumber);
+        asset.setQualityStatus(AssetQualityStatus.OK);
+        Set<String> componentsSerialNumbers = new HashSet<>();
+        for (int i = 0; i < components; i++)
+        {
+            componentsSerialNumbers.add(String.format("WBA%08dC%05d", serialNumber, i));
+        }
+        asset.setComponentsSerialNumbers(componentsSerialNumbers);
+        asset.setStatus("statusValue");
+        asset.setProductionDateGmt("2000-01-01T00:00:00Z");
+        asset.setMspId("MSPID");
+        asset.setSerialNumberType(SerialNumberType.SINGLE);
+        asset.setManufacturerPlant("Werk M\u00fcnchen");
+        asset.setManufacturerLine("manufacturerLineValue");
+        asset.setCustomFields(Collections.singletonMap("customKey", "customValue"));
+        asset.setQualityDocuments(Collections.singletonMap("qualityKey", "qualityValue"));
+        return asset;
+    }
+
+    private static Asset decode(byte[] record)
+    {
+        BinaryReader in = new BinaryReader(record);
+        assertEquals(AssetBinaryEncoder.MAGIC_BYTE, in.read());
+        assertEquals(1, in.readFixedInt());
+        Asset asset = new Asset();
+        asset.setRequestProcessId(in.readNullableString());
+        asset.setRequestDate(in.readUnionIndex() ? new Date(in.readLong()) : null);
+        asset.setManufacturer(in.readNullableString());
+        asset.setProductionCountryCodeManufacturer(in.readNullableString());
+        asset.setPartNameManufacturer(in.readNullableString());
+        asset.setPartNumberManufacturer(in.readNullableString());
+        asset.setPartNumberCustomer(in.readNullableString());
+        asset.setSerialNumberManufacturer(in.readNullableString());
+        asset.setSerialNumberCustomer(in.readNullableString());
+        asset.setQualityStatus(in.readUnionIndex() ? AssetQualityStatus.values()[(int) in.readLong()] : null);
+        asset.setComponentsSerialNumbers(in.readUnionIndex() ? in.readPrefixCompressed() : null);
+        asset.setStatus(in.readNullableString());
+        asset.setProductionDateGmt(in.readNullableString());
+        asset.setMspId(in.readNullableString());
+        asset.setSerialNumberType(in.readUnionIndex() ? SerialNumberType.values()[(int) in.readLong()] : null);
+        asset.setManufacturerPlant(in.readNullableString());
+        asset.setManufacturerLine(in.readNullableString());
+        asset.setCustomFields(in.readUnionIndex() ? in.readMap() : null);
+        asset.setQualityDocuments(in.readUnionIndex() ? in.readMap() : null);
+        assertEquals(record.length, in.position);
+        return asset;
+    }
+
+    private static final class BinaryReader
+    {
+        private final byte[] bytes;
+        private int position;
+
+        private BinaryReader(byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        private byte read()
+        {
+            return bytes[position++];
+        }
+
+        private int readFixedInt()
+        {
+            return (read() & 0xFF) << 24 | (read() & 0xFF) << 16 | (read() & 0xFF) << 8 | read() & 0xFF;
+        }
+
+        private long readLong()
+        {
+            long zigZag = 0;
+            int shift = 0;
+            byte next;
+            do
+            {
+                next = read();
+                zigZag |= (long) (next & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((next & 0x80) != 0);
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        private boolean readUnionIndex()
+        {
+            return readLong() == 1;
+        }
+
+        private String readNullableString()
+        {
+            if (!readUnionIndex())
+            {
+                return null;
+            }
+            int length = (int) readLong();
+            position += length;
+            return new String(bytes, position - length, length, StandardCharsets.UTF_8);
+        }
+
+        private Map<String, String> readMap()
+        {
+            Map<String, String> map = new LinkedHashMap<>();
+            for (long count = readLong(); count != 0; count = readLong())
+            {
+                for (long i = 0; i < count; i++)
+                {
+                    int length = (int) readLong();
+                    position += length;
+                    map.put(new String(bytes, position - length, length, StandardCharsets.UTF_8),
+                            readNullableString());
+                }
+            }
+            return map;
+        }
+
+        private Set<String> readPrefixCompressed()
+        {
+            Set<String> strings = new HashSet<>();
+            String previous = "";
+            for (long count = readLong(); count != 0; count = readLong())
+            {
+                for (long i = 0; i < count; i++)
+                {
+                    int sharedPrefix = (int) readLong();
+                    String suffix = readNullableString();
+                    if (suffix == null)
+                    {
+                        strings.add(null);
+                        continue;
+                    }
+                    previous = previous.substring(0, previous.offsetByCodePoints(0, sharedPrefix)) + suffix;
+                    strings.add(previous);
+                }
+            }
+            return strings;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package de.bmw.partchain.dis.asset.wire;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictDecompress;
+import de.bmw.partchain.dis.asset.jackson.AssetJsonCodec;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.AssetQualityStatus;
+import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class ZstdDictionaryTest
+{
+    private final AssetJsonCodec codec = new AssetJsonCodec(false);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    @SneakyThrows
+    public void compress_trainedOnSampleAssets_smallerThanPlainZstd()
+    {
+        //Arrange
+        Random random = new Random(42);
+        File samples = folder.newFile("samples.ndjson");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+        {
+            lines.add(codec.writeAsset(sampleAsset(random)));
+        }
+        Files.write(samples.toPath(), lines, StandardCharsets.UTF_8);
+        byte[] trained = ZstdDictionaryTrainer.train(samples.toPath(), 32 * 1024);
+        ZstdDictionary dictionary = new ZstdDictionary(trained, 3);
+        ZstdDictDecompress decompressDictionary = new ZstdDictDecompress(trained);
+        long plainBytes = 0;
+        long compressedBytes = 0;
+        long dictionaryBytes = 0;
+
+        for (int i = 0; i < 1000; i++)
+        {
+            byte[] payload = codec.writeAssetBytes(sampleAsset(random));
+
+            //Act
+            byte[] result = dictionary.compress(payload);
+
+            //Assert
+            assertArrayEquals(payload, Zstd.decompress(result, decompressDictionary, payload.length));
+            plainBytes += payload.length;
+            compressedBytes += Zstd.compress(payload, 3).length;
+            dictionaryBytes += result.length;
+        }
+        log.info(String.format("bytes/asset: json %s, zstd %s, zstd with dictionary %s (dictionary %s)",
+                plainBytes / 1000, compressedBytes / 1000, dictionaryBytes / 1000, dictionary.getId()));
+        assertTrue(dictionaryBytes < compressedBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dictionaryId_noDictionary_throwsException()
+    {
+        //Act
+        ZstdDictionary.dictionaryId("{\"mspId\":\"MSPID\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Asset sampleAsset(Random random)
+    {
+        int part = random.nextInt(50);
+        Asset asset = new Asset();
+        asset.setRequestProcessId(Long.toHexString(random.nextLong()));
+        asset.setRequestDate(new Date(1_600_000_000_000L + random.nextInt(1_000_000_000)));
+        asset.setManufacturer("manufacturer" + random.nextInt(3));
+        asset.setProductionCountryCodeManufacturer(random.nextBoolean() ? "DE" : "CN");
+        asset.setPartNameManufacturer("partName" + part);
+        asset.setPartNumberManufacturer("PN-" + (100000 + part));
+        asset.setPartNumberCustomer("PC-" + (200000 + part));
+        asset.setSerialNumberManufacturer(String.format("WBA%08d", random.nextInt(100_000_000)));
+        asset.setSerialNumberCustomer(String.format("C%08d", random.nextInt(100_000_000)));
+        asset.setQualityStatus(AssetQualityStatus.values()[random.nextInt(3)]);
+        asset.setComponentsSerialNumbers(new HashSet<>(Arrays.asList(String.format("WBA%08d", random.nextInt(1000)),
+                String.format("WBA%08d", random.nextInt(1000)))));
+        asset.setStatus("PRODUCED");
+        asset.setProductionDateGmt("2020-10-0" + (1 + random.nextInt(9)) + "T00:00:00Z");
+        asset.setMspId("MSPID");
+        asset.setSerialNumberType(SerialNumberType.SINGLE);
+        asset.setManufacturerPlant("plant" + random.nextInt(4));
+        asset.setManufacturerLine("line" + random.nextInt(10));
+        asset.setCustomFields(Collections.singletonMap("customKey", "customValue" + random.nextInt(5)));
+        asset.setQualityDocuments(Collections.singletonMap("qualityKey", "qualityValue"));
+        return asset;
+    }
+}